@@ -0,0 +1,25 @@
+package com.hypixel.hytale.logger.backend;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.LogRecord;
+
+// Benchmark stand-in for the server's logger backend: fans each published record out to the
+// subscribed lists on the logging thread, like the real backend does.
+public class HytaleLoggerBackend {
+    private static final List<List<LogRecord>> SUBSCRIBERS = new CopyOnWriteArrayList<>();
+
+    public static void subscribe(List<LogRecord> list) {
+        SUBSCRIBERS.add(list);
+    }
+
+    public static void unsubscribe(List<LogRecord> list) {
+        SUBSCRIBERS.remove(list);
+    }
+
+    public static void publish(LogRecord record) {
+        for (List<LogRecord> list : SUBSCRIBERS) {
+            list.add(record);
+        }
+    }
+}
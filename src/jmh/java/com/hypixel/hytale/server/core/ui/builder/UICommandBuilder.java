@@ -0,0 +1,62 @@
+package com.hypixel.hytale.server.core.ui.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Benchmark stand-in for the server's command builder: records each command the way the real
+// one queues them, without the server's serialization.
+public class UICommandBuilder {
+    private final List<Command> commands = new ArrayList<>();
+
+    public UICommandBuilder append(String document) {
+        commands.add(new Command("append", null, document));
+        return this;
+    }
+
+    public UICommandBuilder append(String selector, String document) {
+        commands.add(new Command("append", selector, document));
+        return this;
+    }
+
+    public UICommandBuilder insertBefore(String selector, String document) {
+        commands.add(new Command("insertBefore", selector, document));
+        return this;
+    }
+
+    public UICommandBuilder remove(String selector) {
+        commands.add(new Command("remove", selector, null));
+        return this;
+    }
+
+    public UICommandBuilder clear(String selector) {
+        commands.add(new Command("clear", selector, null));
+        return this;
+    }
+
+    public UICommandBuilder set(String selector, String value) {
+        commands.add(new Command("set", selector, value));
+        return this;
+    }
+
+    public UICommandBuilder set(String selector, boolean value) {
+        commands.add(new Command("set", selector, value));
+        return this;
+    }
+
+    public UICommandBuilder set(String selector, int value) {
+        commands.add(new Command("set", selector, value));
+        return this;
+    }
+
+    public <T> UICommandBuilder set(String selector, List<T> value) {
+        commands.add(new Command("set", selector, value));
+        return this;
+    }
+
+    public List<Command> getCommands() {
+        return commands;
+    }
+
+    public record Command(String type, String selector, Object value) {
+    }
+}
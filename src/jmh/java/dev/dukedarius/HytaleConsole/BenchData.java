@@ -0,0 +1,114 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import java.util.Locale;
+import java.util.Random;
+import java.util.logging.Level;
+
+// Synthetic log rows for the benchmarks. A `selectivity` share of rows come from MATCH_LOGGER
+// at WARNING and contain MATCH_WORD, so every filter kind below selects the same rows; the
+// rest are INFO lines spread over a few dozen other loggers.
+final class BenchData {
+    static final String MATCH_LOGGER = "Bench.Match";
+    static final String MATCH_WORD = "chunkfail";
+    static final String[] FILTER_KINDS = {"ALL", "LOGGER", "LEVEL", "TEXT", "REGEX", "COMBINED"};
+    private static final int MESSAGE_POOL = 4096;
+    private static final String[] WORDS = {
+            "loaded", "region", "entity", "saved", "player", "joined", "tick", "took", "ms",
+            "world", "spawn", "block", "update", "queue", "flushed", "asset", "pack", "ready"
+    };
+
+    final LoggerRegistry loggers = new LoggerRegistry();
+    final RowFormatter formatter = new RowFormatter(loggers);
+    final LogBuffer rows;
+    final TextIndex index = new TextIndex();
+    private final Random random = new Random(42);
+    private final double selectivity;
+    private final int matchLogger;
+    private final int[] otherLoggers = new int[48];
+    private final String[] matchMessages = new String[MESSAGE_POOL];
+    private final String[] otherMessages = new String[MESSAGE_POOL];
+    private long millis = 1_700_000_000_000L;
+    private int next;
+
+    BenchData(int bufferSize, double selectivity) {
+        this(bufferSize, selectivity, false);
+    }
+
+    // Tiered keeps WARNING and up in a separate tier a quarter the size of the INFO one.
+    BenchData(int bufferSize, double selectivity, boolean tiered) {
+        int size = powerOfTwoAtLeast(bufferSize);
+        this.rows = tiered
+                ? new LogBuffer(new int[]{Integer.MIN_VALUE, Level.WARNING.intValue()}, new int[]{size, Math.max(2, size / 4)}, Long.MAX_VALUE, 0L, true)
+                : new LogBuffer(size, 0L, true);
+        this.selectivity = selectivity;
+        this.matchLogger = loggers.intern(MATCH_LOGGER);
+        for (int i = 0; i < otherLoggers.length; i++) {
+            otherLoggers[i] = loggers.intern("Bench.Module" + i);
+        }
+        for (int i = 0; i < MESSAGE_POOL; i++) {
+            matchMessages[i] = MATCH_WORD + " " + random.nextInt(100_000) + " " + sentence();
+            otherMessages[i] = sentence();
+        }
+    }
+
+    static int powerOfTwoAtLeast(int n) {
+        return n <= 2 ? 2 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    void fill(int count) {
+        for (int i = 0; i < count; i++) {
+            append();
+        }
+    }
+
+    // Same work as LogUIManager.appendRow for one record.
+    long append() {
+        boolean match = random.nextDouble() < selectivity;
+        int loggerId = match ? matchLogger : otherLoggers[random.nextInt(otherLoggers.length)];
+        int level = match ? Level.WARNING.intValue() : Level.INFO.intValue();
+        String message = (match ? matchMessages : otherMessages)[next++ & (MESSAGE_POOL - 1)];
+        millis += random.nextInt(4);
+        String messageText = message.toLowerCase(Locale.ROOT);
+        String searchText = formatter.searchPrefix(millis, level, loggerId) + messageText;
+        long seq = rows.append(millis, level, loggerId, message, searchText);
+        rows.chargeIndex(seq, index.add(seq, rows.tierOf(level), messageText));
+        index.trim(rows);
+        rows.setIndexOverhead(index.overheadBytes());
+        return seq;
+    }
+
+    @Nonnull
+    RowFilter filter(@Nonnull String kind) {
+        try {
+            return switch (kind) {
+                case "ALL" -> new RowFilter(formatter, loggers, null, Integer.MIN_VALUE, LogQuery.EMPTY);
+                case "LOGGER" -> new RowFilter(formatter, loggers, MATCH_LOGGER, Integer.MIN_VALUE, LogQuery.EMPTY);
+                case "LEVEL" -> new RowFilter(formatter, loggers, null, Level.WARNING.intValue(), LogQuery.EMPTY);
+                case "TEXT" -> new RowFilter(formatter, loggers, null, Integer.MIN_VALUE, LogQuery.parse(MATCH_WORD, loggers, millis));
+                case "REGEX" -> new RowFilter(formatter, loggers, null, Integer.MIN_VALUE, LogQuery.parse("/" + MATCH_WORD + " \\d+/", loggers, millis));
+                case "COMBINED" -> new RowFilter(formatter, loggers, null, Integer.MIN_VALUE,
+                        LogQuery.parse("level>=WARNING logger:" + MATCH_LOGGER + " " + MATCH_WORD, loggers, millis));
+                default -> throw new IllegalArgumentException("Unknown filter kind " + kind);
+            };
+        } catch (LogQuery.ParseException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nonnull
+    private String sentence() {
+        StringBuilder sb = new StringBuilder();
+        int words = 4 + random.nextInt(10);
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextInt(4) == 0) {
+                sb.append(' ').append(random.nextInt(10_000));
+            }
+        }
+        return sb.toString();
+    }
+}
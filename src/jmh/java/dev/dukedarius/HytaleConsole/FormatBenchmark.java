@@ -0,0 +1,48 @@
+package dev.dukedarius.HytaleConsole;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of turning one stored row into display strings and into its search text.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark {
+    private BenchData data;
+    private long seq;
+
+    @Setup
+    public void setup() {
+        data = new BenchData(8192, 0.1);
+        data.fill(8192);
+    }
+
+    private long nextSeq() {
+        seq = seq + 1 < data.rows.nextSeq() ? seq + 1 : data.rows.firstSeq();
+        return seq;
+    }
+
+    @Benchmark
+    public LogRow formatRow() {
+        return data.formatter.format(data.rows, nextSeq());
+    }
+
+    @Benchmark
+    public String searchText() {
+        long s = nextSeq();
+        return data.formatter.searchText(data.rows.millis(s), data.rows.level(s), data.rows.loggerId(s), data.rows.message(s));
+    }
+}
@@ -0,0 +1,70 @@
+package dev.dukedarius.HytaleConsole;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Refresh-thread cost per ingested record: search text, buffer append and text index upkeep,
+// measured with the buffer already full so eviction is included.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestBenchmark {
+    private static final int BATCH = 64;
+
+    @Param({"5000", "100000", "1000000"})
+    public int bufferSize;
+
+    @Param({"0.01", "0.1", "0.5"})
+    public double selectivity;
+
+    // Whether warnings get their own retention tier, which routes lookups through the directory.
+    @Param({"false", "true"})
+    public boolean tiered;
+
+    private BenchData data;
+    private ViewCache views;
+
+    @Setup
+    public void setup() {
+        data = new BenchData(bufferSize, selectivity, tiered);
+        data.fill(data.rows.capacity());
+        views = new ViewCache();
+        // The filters most pages sit on: everything, warnings and up, and one text search.
+        for (String kind : new String[]{"ALL", "LEVEL", "TEXT"}) {
+            RowFilter filter = data.filter(kind);
+            views.acquire(kind, () -> filter, data.rows, data.index);
+        }
+    }
+
+    @Benchmark
+    public long appendRow() {
+        return data.append();
+    }
+
+    // A refresh batch: append the rows, then let the shared views test only those.
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long appendBatchWithViews() {
+        long seq = 0;
+        for (int i = 0; i < BATCH; i++) {
+            seq = data.append();
+        }
+        views.catchUp(data.rows);
+        return seq;
+    }
+}
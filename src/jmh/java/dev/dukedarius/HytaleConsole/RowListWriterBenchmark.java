@@ -0,0 +1,71 @@
+package dev.dukedarius.HytaleConsole;
+
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Command generation for LogUIPage.updateRows: a following page whose window moved by newRows.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowListWriterBenchmark {
+    private static final int ROWS = 1 << 16;
+
+    @Param({"50", "200"})
+    public int pageSize;
+
+    @Param({"1", "10", "50", "200"})
+    public int newRows;
+
+    // Newest first, like a window: index i holds the row with sequence ROWS - 1 - i.
+    private List<LogRow> rowsDescending;
+    private RowListWriter writer;
+    private int top;
+
+    @Setup
+    public void setup() {
+        BenchData data = new BenchData(ROWS, 0.1);
+        data.fill(ROWS);
+        LogRow[] rows = new LogRow[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = data.formatter.format(data.rows, ROWS - 1 - i);
+        }
+        rowsDescending = Arrays.asList(rows);
+        writer = new RowListWriter("#LogBox", "Pages/HytaleConsole_LogRow.ui", new UpdateCounter());
+        top = pageSize;
+        writer.writeAll(new UICommandBuilder(), window(), (index, seq) -> {});
+    }
+
+    private List<LogRow> window() {
+        int from = ROWS - 1 - (top - 1);
+        return rowsDescending.subList(from, from + pageSize);
+    }
+
+    @Benchmark
+    public UICommandBuilder updateRows() {
+        top += newRows;
+        if (top > ROWS) {
+            top = pageSize;
+            writer.writeAll(new UICommandBuilder(), window(), (index, seq) -> {});
+        }
+        UICommandBuilder b = new UICommandBuilder();
+        writer.writeDiff(b, window(), (index, seq) -> {});
+        return b;
+    }
+}
@@ -0,0 +1,83 @@
+package dev.dukedarius.HytaleConsole;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Filtering cost per filter kind, buffer size and share of matching rows: building a view is
+// what a filter change pays, reading a window is what every page refresh pays.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowWindowBenchmark {
+    private static final int PAGE_SIZE = 50;
+
+    @Param({"5000", "100000", "1000000"})
+    public int bufferSize;
+
+    @Param({"ALL", "LOGGER", "LEVEL", "TEXT", "REGEX", "COMBINED"})
+    public String filter;
+
+    @Param({"0.01", "0.1", "0.5"})
+    public double selectivity;
+
+    private BenchData data;
+    private RowFilter rowFilter;
+    private FilteredView view;
+    private FilteredView textView;
+    private RowFilter typedFurther;
+
+    @Setup
+    public void setup() throws LogQuery.ParseException {
+        data = new BenchData(bufferSize, selectivity);
+        data.fill(bufferSize);
+        rowFilter = data.filter(filter);
+        view = new FilteredView(filter, rowFilter);
+        view.build(data.rows, data.index, () -> false);
+        textView = new FilteredView("TEXT", data.filter("TEXT"));
+        textView.build(data.rows, data.index, () -> false);
+        typedFurther = new RowFilter(data.formatter, data.loggers, null, Integer.MIN_VALUE,
+                LogQuery.parse(BenchData.MATCH_WORD + " 1", data.loggers, 0L));
+    }
+
+    @Benchmark
+    public FilteredView buildView() {
+        FilteredView fresh = new FilteredView(filter, rowFilter);
+        fresh.build(data.rows, data.index, () -> false);
+        return fresh;
+    }
+
+    // The TEXT query typed one term further, re-testing only what TEXT matched. Independent of
+    // the filter parameter; compare with buildView at filter=TEXT.
+    @Benchmark
+    public FilteredView buildNarrowedView() {
+        FilteredView fresh = new FilteredView("typed", typedFurther);
+        fresh.buildFrom(textView, data.rows, () -> false);
+        return fresh;
+    }
+
+    @Benchmark
+    public List<LogRow> window() {
+        List<LogRow> list = new ArrayList<>(PAGE_SIZE);
+        view.scanDescending(Long.MAX_VALUE, data.rows.firstSeq(), seq -> {
+            list.add(data.formatter.format(data.rows, seq));
+            return list.size() < PAGE_SIZE;
+        });
+        return list;
+    }
+}
@@ -0,0 +1,63 @@
+package dev.dukedarius.HytaleConsole;
+
+import com.hypixel.hytale.logger.backend.HytaleLoggerBackend;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+// Logging threads publishing through the backend into the subscribed sink while the refresh
+// thread drains it. Producer and consumer thread counts are set with -tg (default 4,1).
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SinkBenchmark {
+    @Param({"1024", "16384"})
+    public int capacity;
+
+    private LogRecordSink sink;
+    private final LogRecord record = new LogRecord(Level.INFO, "Bench record");
+
+    @Setup
+    public void setup() {
+        sink = new LogRecordSink(capacity);
+        HytaleLoggerBackend.subscribe(sink);
+    }
+
+    @TearDown
+    public void tearDown() {
+        HytaleLoggerBackend.unsubscribe(sink);
+    }
+
+    @Benchmark
+    @Group("publish")
+    @GroupThreads(4)
+    public void producer() {
+        HytaleLoggerBackend.publish(record);
+    }
+
+    @Benchmark
+    @Group("publish")
+    @GroupThreads(1)
+    public int consumer(Blackhole blackhole) {
+        return sink.drain(blackhole::consume, capacity);
+    }
+}
@@ -0,0 +1,153 @@
+package dev.dukedarius.HytaleConsole;
+
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.codec.builder.BuilderCodec;
+
+public final class ConsoleConfig {
+    static final BuilderCodec<ConsoleConfig> CODEC = BuilderCodec.builder(ConsoleConfig.class, ConsoleConfig::new)
+            .addField(new KeyedCodec<>("SpoolEnabled", BuilderCodec.BOOLEAN), (o, i) -> o.spoolEnabled = i, o -> o.spoolEnabled)
+            .addField(new KeyedCodec<>("SpoolSegmentMegabytes", BuilderCodec.INTEGER), (o, i) -> o.spoolSegmentMegabytes = i, o -> o.spoolSegmentMegabytes)
+            .addField(new KeyedCodec<>("SpoolMaxMegabytes", BuilderCodec.INTEGER), (o, i) -> o.spoolMaxMegabytes = i, o -> o.spoolMaxMegabytes)
+            .addField(new KeyedCodec<>("SpoolMaxAgeHours", BuilderCodec.INTEGER), (o, i) -> o.spoolMaxAgeHours = i, o -> o.spoolMaxAgeHours)
+            .addField(new KeyedCodec<>("BackfillEnabled", BuilderCodec.BOOLEAN), (o, i) -> o.backfillEnabled = i, o -> o.backfillEnabled)
+            .addField(new KeyedCodec<>("BackfillDirectory", BuilderCodec.STRING), (o, i) -> o.backfillDirectory = i, o -> o.backfillDirectory)
+            .addField(new KeyedCodec<>("BackfillFileGlob", BuilderCodec.STRING), (o, i) -> o.backfillFileGlob = i, o -> o.backfillFileGlob)
+            .addField(new KeyedCodec<>("BackfillLinePattern", BuilderCodec.STRING), (o, i) -> o.backfillLinePattern = i, o -> o.backfillLinePattern)
+            .addField(new KeyedCodec<>("BackfillTimeFormat", BuilderCodec.STRING), (o, i) -> o.backfillTimeFormat = i, o -> o.backfillTimeFormat)
+            .addField(new KeyedCodec<>("TailEnabled", BuilderCodec.BOOLEAN), (o, i) -> o.tailEnabled = i, o -> o.tailEnabled)
+            .addField(new KeyedCodec<>("TailAddress", BuilderCodec.STRING), (o, i) -> o.tailAddress = i, o -> o.tailAddress)
+            .addField(new KeyedCodec<>("RefreshCoalesceMillis", BuilderCodec.INTEGER), (o, i) -> o.refreshCoalesceMillis = i, o -> o.refreshCoalesceMillis)
+            .addField(new KeyedCodec<>("RefreshMaxPageIntervalMillis", BuilderCodec.INTEGER), (o, i) -> o.refreshMaxPageIntervalMillis = i, o -> o.refreshMaxPageIntervalMillis)
+            .addField(new KeyedCodec<>("SearchDebounceMillis", BuilderCodec.INTEGER), (o, i) -> o.searchDebounceMillis = i, o -> o.searchDebounceMillis)
+            .addField(new KeyedCodec<>("CollapseRepeats", BuilderCodec.BOOLEAN), (o, i) -> o.collapseRepeats = i, o -> o.collapseRepeats)
+            .addField(new KeyedCodec<>("FloodRatePerSecond", BuilderCodec.INTEGER), (o, i) -> o.floodRatePerSecond = i, o -> o.floodRatePerSecond)
+            .addField(new KeyedCodec<>("FloodBurst", BuilderCodec.INTEGER), (o, i) -> o.floodBurst = i, o -> o.floodBurst)
+            .addField(new KeyedCodec<>("FloodSampleEvery", BuilderCodec.INTEGER), (o, i) -> o.floodSampleEvery = i, o -> o.floodSampleEvery)
+            .addField(new KeyedCodec<>("RetainSevereLines", BuilderCodec.INTEGER), (o, i) -> o.retainSevereLines = i, o -> o.retainSevereLines)
+            .addField(new KeyedCodec<>("RetainWarningLines", BuilderCodec.INTEGER), (o, i) -> o.retainWarningLines = i, o -> o.retainWarningLines)
+            .addField(new KeyedCodec<>("RetainInfoLines", BuilderCodec.INTEGER), (o, i) -> o.retainInfoLines = i, o -> o.retainInfoLines)
+            .addField(new KeyedCodec<>("RetainVerboseLines", BuilderCodec.INTEGER), (o, i) -> o.retainVerboseLines = i, o -> o.retainVerboseLines)
+            .addField(new KeyedCodec<>("MemoryBudgetMegabytes", BuilderCodec.INTEGER), (o, i) -> o.memoryBudgetMegabytes = i, o -> o.memoryBudgetMegabytes)
+            .build();
+
+    private boolean spoolEnabled = false;
+    private int spoolSegmentMegabytes = 16;
+    private int spoolMaxMegabytes = 256;
+    private int spoolMaxAgeHours = 72;
+    // Server log files read back when scrolling past everything else; relative to the server folder.
+    private boolean backfillEnabled = false;
+    private String backfillDirectory = "logs";
+    private String backfillFileGlob = "*.log";
+    private String backfillLinePattern = "^\\[(?<time>\\d{4}/\\d{2}/\\d{2} \\d{2}:\\d{2}:\\d{2})\\s+(?<level>[A-Z]+)]\\s+\\[(?<logger>[^\\]]*)]\\s?(?<message>.*)";
+    private String backfillTimeFormat = "yyyy/MM/dd HH:mm:ss";
+    // Local endpoint streaming lines as JSON: "host:port" on a loopback address, or "unix:<path>".
+    private boolean tailEnabled = false;
+    private String tailAddress = "127.0.0.1:25590";
+    private int refreshCoalesceMillis = 100;
+    private int refreshMaxPageIntervalMillis = 2000;
+    // Quiet time after the last keystroke before a text search runs.
+    private int searchDebounceMillis = 200;
+    private boolean collapseRepeats = true;
+    // 0 disables the per-logger rate limit.
+    private int floodRatePerSecond = 0;
+    private int floodBurst = 500;
+    private int floodSampleEvery = 100;
+    // In-memory lines kept per level group; CONFIG and below count as verbose.
+    private int retainSevereLines = 1 << 16;
+    private int retainWarningLines = 1 << 16;
+    private int retainInfoLines = 1 << 17;
+    private int retainVerboseLines = 1 << 14;
+    private int memoryBudgetMegabytes = 64;
+
+    public boolean isSpoolEnabled() {
+        return spoolEnabled;
+    }
+
+    public long getSpoolSegmentBytes() {
+        return Math.max(1, spoolSegmentMegabytes) * 1024L * 1024L;
+    }
+
+    public long getSpoolMaxBytes() {
+        return Math.max(1, spoolMaxMegabytes) * 1024L * 1024L;
+    }
+
+    public long getSpoolMaxAgeMillis() {
+        return Math.max(1, spoolMaxAgeHours) * 3_600_000L;
+    }
+
+    public boolean isBackfillEnabled() {
+        return backfillEnabled;
+    }
+
+    public String getBackfillDirectory() {
+        return backfillDirectory;
+    }
+
+    public String getBackfillFileGlob() {
+        return backfillFileGlob;
+    }
+
+    public String getBackfillLinePattern() {
+        return backfillLinePattern;
+    }
+
+    public String getBackfillTimeFormat() {
+        return backfillTimeFormat;
+    }
+
+    public boolean isTailEnabled() {
+        return tailEnabled;
+    }
+
+    public String getTailAddress() {
+        return tailAddress;
+    }
+
+    public long getRefreshCoalesceNanos() {
+        return Math.max(10, refreshCoalesceMillis) * 1_000_000L;
+    }
+
+    public long getRefreshMaxPageIntervalNanos() {
+        return Math.max(Math.max(10, refreshCoalesceMillis), refreshMaxPageIntervalMillis) * 1_000_000L;
+    }
+
+    public long getSearchDebounceNanos() {
+        return Math.max(0, searchDebounceMillis) * 1_000_000L;
+    }
+
+    public boolean isCollapseRepeats() {
+        return collapseRepeats;
+    }
+
+    public int getFloodRatePerSecond() {
+        return floodRatePerSecond;
+    }
+
+    public int getFloodBurst() {
+        return floodBurst;
+    }
+
+    public int getFloodSampleEvery() {
+        return floodSampleEvery;
+    }
+
+    public int getRetainSevereLines() {
+        return retainSevereLines;
+    }
+
+    public int getRetainWarningLines() {
+        return retainWarningLines;
+    }
+
+    public int getRetainInfoLines() {
+        return retainInfoLines;
+    }
+
+    public int getRetainVerboseLines() {
+        return retainVerboseLines;
+    }
+
+    public long getMemoryBudgetBytes() {
+        return Math.max(1, memoryBudgetMegabytes) * 1024L * 1024L;
+    }
+}
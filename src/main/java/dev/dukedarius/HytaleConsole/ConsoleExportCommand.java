@@ -0,0 +1,41 @@
+package dev.dukedarius.HytaleConsole;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+
+public class ConsoleExportCommand extends AbstractPlayerCommand {
+    private final LogUIManager logUIManager;
+    private final Path directory;
+
+    public ConsoleExportCommand(@Nonnull LogUIManager logUIManager, @Nonnull Path directory) {
+        super("export", "Save the lines matching your console filters to a compressed file");
+        this.logUIManager = logUIManager;
+        this.directory = directory;
+    }
+
+    @Override
+    protected void execute(
+            @Nonnull CommandContext context,
+            @Nonnull Store<EntityStore> store,
+            @Nonnull Ref<EntityStore> ref,
+            @Nonnull PlayerRef playerRef,
+            @Nonnull World world
+    ) {
+        // Progress is reported from the export thread; messages go out on the world thread.
+        Path target = logUIManager.startExport(playerRef, directory, text -> world.execute(() -> playerRef.sendMessage(Message.raw(text))));
+        if (target == null) {
+            context.sendMessage(Message.raw("A console export is already running"));
+            return;
+        }
+        context.sendMessage(Message.raw("Exporting console lines to " + target.toAbsolutePath() + "..."));
+    }
+}
@@ -0,0 +1,212 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the console. Everything recorded on the hot paths is a
+ * {@link LongAdder} or a {@link LatencyHistogram}, so recording never allocates.
+ */
+public final class ConsoleMetrics implements ConsoleMetricsMXBean {
+    public static final String OBJECT_NAME = "dev.dukedarius.HytaleConsole:type=ConsoleMetrics";
+    private static final long RATE_WINDOW_NANOS = 5_000_000_000L;
+
+    final LongAdder ingested = new LongAdder();
+    // Records folded into the previous identical row, and records dropped by the per-logger rate limit.
+    final LongAdder collapsed = new LongAdder();
+    final LongAdder suppressed = new LongAdder();
+    final LongAdder updates = new LongAdder();
+    final LongAdder commands = new LongAdder();
+    final LongAdder bytes = new LongAdder();
+    // One refresh of the scheduler.
+    final LatencyHistogram refresh = new LatencyHistogram();
+    // Testing rows against filters: view catch-up and view builds.
+    final LatencyHistogram filter = new LatencyHistogram();
+    // Reading and formatting a page's window.
+    final LatencyHistogram window = new LatencyHistogram();
+    // One sendUpdate to a client.
+    final LatencyHistogram send = new LatencyHistogram();
+    // World-thread time spent opening the console for a player.
+    final LatencyHistogram open = new LatencyHistogram();
+    // Preparing the first window for newly opened pages, off the world thread.
+    final LatencyHistogram snapshot = new LatencyHistogram();
+    // Tail clients that fell behind the in-memory buffer and skipped ahead, or that stopped
+    // reading and were disconnected.
+    final LongAdder tailResyncs = new LongAdder();
+    final LongAdder tailDisconnects = new LongAdder();
+    private final LogUIManager manager;
+    // The ingest rate is measured between two samples 5-10s apart, rolled by the refresh.
+    private volatile long olderNanos = System.nanoTime();
+    private volatile long olderCount;
+    private volatile long newerNanos = olderNanos;
+    private volatile long newerCount;
+
+    ConsoleMetrics(@Nonnull LogUIManager manager) {
+        this.manager = manager;
+    }
+
+    void sampleRate(long nowNanos) {
+        if (nowNanos - newerNanos < RATE_WINDOW_NANOS) {
+            return;
+        }
+        olderNanos = newerNanos;
+        olderCount = newerCount;
+        newerCount = ingested.sum();
+        newerNanos = nowNanos;
+    }
+
+    void recordUpdate(int commandCount, long byteEstimate) {
+        updates.increment();
+        commands.add(commandCount);
+        bytes.add(byteEstimate);
+    }
+
+    @Override
+    public long getRecordsIngested() {
+        return ingested.sum();
+    }
+
+    @Override
+    public double getRecordsPerSecond() {
+        long from = olderNanos;
+        long elapsed = System.nanoTime() - from;
+        return elapsed <= 0 ? 0.0 : (ingested.sum() - olderCount) * 1e9 / elapsed;
+    }
+
+    @Override
+    public long getRecordsCollapsed() {
+        return collapsed.sum();
+    }
+
+    @Override
+    public long getRecordsSuppressed() {
+        return suppressed.sum();
+    }
+
+    @Override
+    public long getRecordsDropped() {
+        return manager.getDroppedCount();
+    }
+
+    @Override
+    public int getBufferedRows() {
+        return manager.getBufferedRows();
+    }
+
+    @Override
+    public int getBufferCapacity() {
+        return manager.getBufferCapacity();
+    }
+
+    @Override
+    public long getBufferBytes() {
+        return manager.getBufferBytes();
+    }
+
+    @Override
+    public long getIndexBytes() {
+        return manager.getIndexBytes();
+    }
+
+    @Override
+    public long getBufferBudgetBytes() {
+        return manager.getBufferBudgetBytes();
+    }
+
+    @Override
+    public int getOpenPages() {
+        return manager.getPages().size();
+    }
+
+    @Override
+    public int getSharedViews() {
+        return manager.getSharedViews();
+    }
+
+    @Override
+    public int getTailClients() {
+        return manager.getTailClients();
+    }
+
+    @Override
+    public long getTailResyncs() {
+        return tailResyncs.sum();
+    }
+
+    @Override
+    public long getTailDisconnects() {
+        return tailDisconnects.sum();
+    }
+
+    @Override
+    public long getUpdatesSent() {
+        return updates.sum();
+    }
+
+    @Override
+    public long getCommandsSent() {
+        return commands.sum();
+    }
+
+    @Override
+    public long getEstimatedBytesSent() {
+        return bytes.sum();
+    }
+
+    @Override
+    public LatencySummary getRefreshLatency() {
+        return refresh.summary();
+    }
+
+    @Override
+    public LatencySummary getFilterLatency() {
+        return filter.summary();
+    }
+
+    @Override
+    public LatencySummary getWindowLatency() {
+        return window.summary();
+    }
+
+    @Override
+    public LatencySummary getSendLatency() {
+        return send.summary();
+    }
+
+    @Override
+    public LatencySummary getOpenLatency() {
+        return open.summary();
+    }
+
+    @Override
+    public LatencySummary getSnapshotLatency() {
+        return snapshot.summary();
+    }
+
+    // Human-readable summary for /console stats.
+    @Nonnull
+    List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("Records: %d ingested (%.1f/s), %d dropped", getRecordsIngested(), getRecordsPerSecond(), getRecordsDropped()));
+        lines.add(String.format("Flood control: %d collapsed into earlier rows, %d suppressed", getRecordsCollapsed(), getRecordsSuppressed()));
+        for (String line : manager.describeSuppressed(5)) {
+            lines.add("  " + line);
+        }
+        lines.add(String.format("Buffer: %d / %d rows, ~%d / %d KB (text index ~%d KB), %d shared views, %d pages", getBufferedRows(),
+                getBufferCapacity(), getBufferBytes() / 1024, getBufferBudgetBytes() / 1024, getIndexBytes() / 1024, getSharedViews(), getOpenPages()));
+        for (String line : manager.describeRetention()) {
+            lines.add("  " + line);
+        }
+        lines.add(String.format("Tail: %d clients, %d resyncs, %d slow clients disconnected", getTailClients(), getTailResyncs(), getTailDisconnects()));
+        lines.add(String.format("Sent: %d updates, %d commands, ~%d KB", getUpdatesSent(), getCommandsSent(), getEstimatedBytesSent() / 1024));
+        lines.add("Refresh: " + getRefreshLatency());
+        lines.add("Filter: " + getFilterLatency());
+        lines.add("Window: " + getWindowLatency());
+        lines.add("Send: " + getSendLatency());
+        lines.add("Open (world thread): " + getOpenLatency());
+        lines.add("Open snapshot (scheduler): " + getSnapshotLatency());
+        return lines;
+    }
+}
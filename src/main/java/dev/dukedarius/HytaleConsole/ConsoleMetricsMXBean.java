@@ -0,0 +1,55 @@
+package dev.dukedarius.HytaleConsole;
+
+/**
+ * JMX view of what the console costs the server. Registered as
+ * {@value ConsoleMetrics#OBJECT_NAME} while the plugin is enabled.
+ */
+public interface ConsoleMetricsMXBean {
+    long getRecordsIngested();
+
+    double getRecordsPerSecond();
+
+    long getRecordsCollapsed();
+
+    long getRecordsSuppressed();
+
+    long getRecordsDropped();
+
+    int getBufferedRows();
+
+    int getBufferCapacity();
+
+    long getBufferBytes();
+
+    long getIndexBytes();
+
+    long getBufferBudgetBytes();
+
+    int getOpenPages();
+
+    int getSharedViews();
+
+    int getTailClients();
+
+    long getTailResyncs();
+
+    long getTailDisconnects();
+
+    long getUpdatesSent();
+
+    long getCommandsSent();
+
+    long getEstimatedBytesSent();
+
+    LatencySummary getRefreshLatency();
+
+    LatencySummary getFilterLatency();
+
+    LatencySummary getWindowLatency();
+
+    LatencySummary getSendLatency();
+
+    LatencySummary getOpenLatency();
+
+    LatencySummary getSnapshotLatency();
+}
@@ -0,0 +1,37 @@
+package dev.dukedarius.HytaleConsole;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+
+public class ConsoleStatsCommand extends AbstractPlayerCommand {
+    private final LogUIManager logUIManager;
+
+    public ConsoleStatsCommand(@Nonnull LogUIManager logUIManager) {
+        super("stats", "Show what the log console is costing the server");
+        this.logUIManager = logUIManager;
+    }
+
+    @Override
+    protected void execute(
+            @Nonnull CommandContext context,
+            @Nonnull Store<EntityStore> store,
+            @Nonnull Ref<EntityStore> ref,
+            @Nonnull PlayerRef playerRef,
+            @Nonnull World world
+    ) {
+        for (String line : logUIManager.getMetrics().describe()) {
+            context.sendMessage(Message.raw(line));
+        }
+        for (LogUIPage page : logUIManager.getPages()) {
+            context.sendMessage(Message.raw("  " + page.describeStats()));
+        }
+    }
+}
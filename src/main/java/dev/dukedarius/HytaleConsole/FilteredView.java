@@ -0,0 +1,185 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongPredicate;
+
+// Ascending sequences of the in-memory rows that pass one filter. Pages with the same filter
+// share a view, and the refresh thread extends it with newly appended rows only, so each new
+// row is tested once per distinct filter rather than once per page.
+//
+// Written by one thread at a time: the building thread before the view is published, then the
+// refresh thread. Live entries are never overwritten in place (growth copies to a new array,
+// dropping rows the buffer's tiers have evicted since), so readers on other threads see a
+// possibly stale but consistent view.
+final class FilteredView {
+    // Rows tested between checks for cancellation while building.
+    private static final int CANCEL_CHECK_INTERVAL = 4096;
+
+    final String key;
+    final RowFilter filter;
+    private volatile long[] seqs = new long[64];
+    private volatile int start;
+    private volatile int end;
+    // Next buffer sequence this view has not tested yet; every match below it is in seqs.
+    private volatile long scannedTo;
+    // Guarded by the owning ViewCache.
+    int refCount;
+
+    FilteredView(@Nonnull String key, @Nonnull RowFilter filter) {
+        this.key = key;
+        this.filter = filter;
+    }
+
+    // Initial pass over everything currently in memory, narrowed through the text index when the
+    // query has a usable needle. Throws CancellationException once cancelled returns true.
+    void build(@Nonnull LogBuffer rows, @Nonnull TextIndex index, @Nonnull BooleanSupplier cancelled) {
+        long first = rows.firstSeq();
+        // Read before the needle is checked against the known loggers, which then include those
+        // of every row below it.
+        long published = rows.nextSeq();
+        String needle = filter.indexNeedle();
+        boolean indexed = TextIndex.isIndexable(needle);
+        // A row is published before it is indexed; stopping at the index's end leaves any such
+        // row to the refresh's next catchUp instead of skipping it.
+        long next = indexed ? Math.min(published, index.indexedThrough() + 1) : published;
+        int[] tested = {0};
+        LongPredicate test = seq -> {
+            if (++tested[0] % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                throw new CancellationException();
+            }
+            if (seq < next && rows.contains(seq) && filter.matches(rows, seq) && rows.validate(seq)) {
+                add(rows, seq);
+            }
+            return seq < next;
+        };
+        if (indexed) {
+            index.scanAscending(needle, first, next - 1, test);
+        } else {
+            rows.scanAscending(first, test);
+        }
+        scannedTo = next;
+    }
+
+    // Like build, but only tests the rows another view matched. Valid when this view's filter
+    // can only match a subset of the other's, e.g. the query was typed further.
+    void buildFrom(@Nonnull FilteredView wider, @Nonnull LogBuffer rows, @Nonnull BooleanSupplier cancelled) {
+        // Read first: every match of the wider view below this point is already in its seqs.
+        long covered = wider.scannedTo;
+        int[] tested = {0};
+        wider.scanAscending(rows.firstSeq(), covered - 1, seq -> {
+            if (++tested[0] % CANCEL_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                throw new CancellationException();
+            }
+            if (rows.contains(seq) && filter.matches(rows, seq) && rows.validate(seq)) {
+                add(rows, seq);
+            }
+            return true;
+        });
+        // The refresh thread's next catchUp tests everything from here on.
+        scannedTo = covered;
+    }
+
+    // Drops evicted rows and tests the rows appended since the last call. Runs on the thread
+    // that appends, so the rows it reads cannot change underneath it.
+    void catchUp(@Nonnull LogBuffer rows) {
+        long first = rows.firstSeq();
+        trimBelow(first);
+        long next = rows.nextSeq();
+        rows.scanAscending(Math.max(scannedTo, first), seq -> {
+            if (seq < next && filter.matches(rows, seq)) {
+                add(rows, seq);
+            }
+            return seq < next;
+        });
+        scannedTo = next;
+    }
+
+    // Every match below this sequence is in the view.
+    long scannedTo() {
+        return scannedTo;
+    }
+
+    // Visits matching sequences in [minSeq, maxSeq] newest first. Returns false if the visitor stopped.
+    boolean scanDescending(long maxSeq, long minSeq, @Nonnull LongPredicate visitor) {
+        long[] array = seqs;
+        int to = Math.min(end, array.length);
+        int from = Math.min(start, to);
+        for (int i = upperIndex(array, from, to, maxSeq) - 1; i >= from; i--) {
+            long seq = array[i];
+            if (seq < minSeq) {
+                break;
+            }
+            if (!visitor.test(seq)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Visits matching sequences in [minSeq, maxSeq] oldest first. Returns false if the visitor stopped.
+    boolean scanAscending(long minSeq, long maxSeq, @Nonnull LongPredicate visitor) {
+        long[] array = seqs;
+        int to = Math.min(end, array.length);
+        int from = Math.min(start, to);
+        for (int i = upperIndex(array, from, to, minSeq - 1); i < to; i++) {
+            long seq = array[i];
+            if (seq > maxSeq) {
+                break;
+            }
+            if (!visitor.test(seq)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(@Nonnull LogBuffer rows, long seq) {
+        long[] array = seqs;
+        int to = end;
+        if (to == array.length) {
+            long[] kept = new long[to - start + 1];
+            int live = 0;
+            for (int i = start; i < to; i++) {
+                if (rows.contains(array[i])) {
+                    kept[live++] = array[i];
+                }
+            }
+            kept[live++] = seq;
+            long[] next = Arrays.copyOf(kept, live * 2 <= array.length ? array.length : array.length * 2);
+            // Bounds first: a reader pairing them with the old array still sees an ascending prefix.
+            start = 0;
+            end = live;
+            seqs = next;
+            return;
+        }
+        array[to] = seq;
+        end = to + 1;
+    }
+
+    private void trimBelow(long minSeq) {
+        int from = upperIndex(seqs, start, end, minSeq - 1);
+        if (from != start) {
+            // The dead prefix, and any holes evicted by the buffer's tiers, are reclaimed the
+            // next time the array has to grow.
+            start = from;
+        }
+    }
+
+    // First index in [from, to) whose sequence is greater than seq.
+    private static int upperIndex(@Nonnull long[] array, int from, int to, long seq) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (array[mid] <= seq) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
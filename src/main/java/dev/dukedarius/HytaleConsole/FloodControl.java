@@ -0,0 +1,107 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+// Ingestion stage in front of the row buffer. A record identical to the one before it (same
+// logger, level, message and stack trace) is folded into the previous row instead of taking a new one, and
+// each logger can optionally be held to a token bucket: once its bucket is empty only one in
+// sampleEvery of its records gets a row, and the rest are counted against the logger.
+//
+// Only used from the refresh thread; the suppressed totals are read elsewhere for stats.
+final class FloodControl {
+    private final boolean collapse;
+    private final double tokensPerMilli;
+    private final double burst;
+    private final int sampleEvery;
+    private double[] tokens = new double[0];
+    private long[] refilledAt = new long[0];
+    private int[] excess = new int[0];
+    private int[] suppressedSince = new int[0];
+    private long[] suppressedTotal = new long[0];
+    private int lastLogger = LoggerRegistry.UNKNOWN;
+    private int lastLevel;
+    private String lastMessage;
+    private String lastTrace;
+
+    // ratePerSecond <= 0 turns the token buckets off.
+    FloodControl(boolean collapse, int ratePerSecond, int burst, int sampleEvery) {
+        this.collapse = collapse;
+        this.tokensPerMilli = Math.max(0, ratePerSecond) / 1000.0;
+        this.burst = Math.max(1, burst);
+        this.sampleEvery = Math.max(1, sampleEvery);
+    }
+
+    // True if the record repeats the previous one and should be folded into its row. Traces
+    // are interned, so the same trace is the same string.
+    boolean isRepeat(int loggerId, int level, @Nonnull String message, @Nullable String trace) {
+        return collapse && loggerId == lastLogger && level == lastLevel && message.equals(lastMessage) && trace == lastTrace;
+    }
+
+    // Decides whether a new record gets a row. Returns -1 if it is suppressed, otherwise how
+    // many of the logger's records were suppressed since its previous row.
+    int admit(int loggerId, long millis) {
+        if (tokensPerMilli <= 0) {
+            return 0;
+        }
+        ensureCapacity(loggerId);
+        if (refilledAt[loggerId] == Long.MIN_VALUE) {
+            tokens[loggerId] = burst;
+            refilledAt[loggerId] = millis;
+        } else if (millis > refilledAt[loggerId]) {
+            tokens[loggerId] = Math.min(burst, tokens[loggerId] + (millis - refilledAt[loggerId]) * tokensPerMilli);
+            refilledAt[loggerId] = millis;
+        }
+        if (tokens[loggerId] >= 1.0) {
+            tokens[loggerId] -= 1.0;
+            excess[loggerId] = 0;
+            return takeSuppressed(loggerId);
+        }
+        if (++excess[loggerId] % sampleEvery == 0) {
+            return takeSuppressed(loggerId);
+        }
+        suppressedSince[loggerId]++;
+        suppressedTotal[loggerId]++;
+        // A dropped record breaks the run, so the next record is not folded across it.
+        lastLogger = LoggerRegistry.UNKNOWN;
+        return -1;
+    }
+
+    // Remembers the record that just got a row so identical followers can be folded into it.
+    void appended(int loggerId, int level, @Nonnull String message, @Nullable String trace) {
+        lastLogger = loggerId;
+        lastLevel = level;
+        lastMessage = message;
+        lastTrace = trace;
+    }
+
+    long suppressedTotal(int loggerId) {
+        long[] totals = suppressedTotal;
+        return loggerId >= 0 && loggerId < totals.length ? totals[loggerId] : 0L;
+    }
+
+    int trackedLoggers() {
+        return suppressedTotal.length;
+    }
+
+    private int takeSuppressed(int loggerId) {
+        int count = suppressedSince[loggerId];
+        suppressedSince[loggerId] = 0;
+        return count;
+    }
+
+    private void ensureCapacity(int loggerId) {
+        if (loggerId < tokens.length) {
+            return;
+        }
+        int size = Math.max(64, Integer.highestOneBit(loggerId) << 1);
+        int from = tokens.length;
+        tokens = Arrays.copyOf(tokens, size);
+        refilledAt = Arrays.copyOf(refilledAt, size);
+        Arrays.fill(refilledAt, from, size, Long.MIN_VALUE);
+        excess = Arrays.copyOf(excess, size);
+        suppressedSince = Arrays.copyOf(suppressedSince, size);
+        suppressedTotal = Arrays.copyOf(suppressedTotal, size);
+    }
+}
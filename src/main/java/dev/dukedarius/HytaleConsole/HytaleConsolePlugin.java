@@ -4,15 +4,21 @@ import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.logger.backend.HytaleLoggerBackend;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
+import com.hypixel.hytale.server.core.util.Config;
 
 import javax.annotation.Nonnull;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.logging.LogRecord;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 
 public class HytaleConsolePlugin extends JavaPlugin {
 
-    private CopyOnWriteArrayList<LogRecord> logs = new CopyOnWriteArrayList<>();
+    private static final int LOG_SINK_CAPACITY = 1 << 14;
+    private final LogRecordSink logs = new LogRecordSink(LOG_SINK_CAPACITY);
+    private final Config<ConsoleConfig> config = this.withConfig("HytaleConsole", ConsoleConfig.CODEC);
     private LogUIManager logUIManager;
+    private LogSpool spool;
     public static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
 
     public HytaleConsolePlugin(@Nonnull JavaPluginInit init) {
@@ -23,18 +29,67 @@ public class HytaleConsolePlugin extends JavaPlugin {
     protected void setup() {
         LOGGER.atInfo().log("Setting up plugin " + this.getName());
 
+        ConsoleConfig settings = config.get();
+        config.save();
+        if (settings.isSpoolEnabled()) {
+            try {
+                this.spool = LogSpool.open(
+                        this.getDataDirectory().resolve("spool"),
+                        settings.getSpoolSegmentBytes(),
+                        settings.getSpoolMaxBytes(),
+                        settings.getSpoolMaxAgeMillis()
+                );
+            } catch (IOException e) {
+                LOGGER.atWarning().withCause(e).log("Could not open console log spool, continuing without history");
+            }
+        }
+
         HytaleLoggerBackend.subscribe(logs);
-        this.logUIManager = new LogUIManager(logs);
-        this.logUIManager.start(this.getTaskRegistry());
-        this.getCommandRegistry().registerCommand(new OpenConsoleCommand(this.logUIManager));
+        this.logUIManager = new LogUIManager(logs, spool, settings);
+        this.logUIManager.start();
+        registerMetrics(this.logUIManager.getMetrics());
+        this.getCommandRegistry().registerCommand(new OpenConsoleCommand(this.logUIManager, this.getDataDirectory().resolve("exports")));
     }
 
     @Override
     protected void shutdown() {
+        unregisterMetrics();
         if (this.logUIManager != null) {
             this.logUIManager.shutdown();
             this.logUIManager = null;
         }
         HytaleLoggerBackend.unsubscribe(logs);
+        if (this.spool != null) {
+            try {
+                this.spool.close();
+            } catch (IOException e) {
+                LOGGER.atWarning().withCause(e).log("Could not close console log spool");
+            }
+            this.spool = null;
+        }
+    }
+
+    private static void registerMetrics(@Nonnull ConsoleMetrics metrics) {
+        try {
+            ObjectName name = new ObjectName(ConsoleMetrics.OBJECT_NAME);
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                // Left over from a previous load of the plugin.
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+        } catch (JMException e) {
+            LOGGER.atWarning().withCause(e).log("Could not register console metrics with JMX");
+        }
+    }
+
+    private static void unregisterMetrics() {
+        try {
+            ObjectName name = new ObjectName(ConsoleMetrics.OBJECT_NAME);
+            if (ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            LOGGER.atWarning().withCause(e).log("Could not unregister console metrics from JMX");
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,52 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Power-of-two buckets over nanoseconds. Recording is lock-free and allocation-free, so it can
+// stay on in production; percentiles are reported as the upper bound of their bucket.
+final class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    void record(long nanos) {
+        long value = Math.max(0L, nanos);
+        buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    long percentile(double fraction) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(n * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                long upper = i == 0 ? 0L : (1L << i) - 1;
+                return Math.min(upper, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Nonnull
+    LatencySummary summary() {
+        long n = count.sum();
+        return new LatencySummary(n, n == 0 ? 0L : total.sum() / n, percentile(0.5), percentile(0.99), max.get());
+    }
+}
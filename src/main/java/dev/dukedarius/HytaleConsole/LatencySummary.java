@@ -0,0 +1,48 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Point-in-time view of one of the console's latency histograms, in microseconds.
+ */
+public final class LatencySummary {
+    private final long count;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+
+    LatencySummary(long count, long meanNanos, long p50Nanos, long p99Nanos, long maxNanos) {
+        this.count = count;
+        this.meanNanos = meanNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMeanMicros() {
+        return meanNanos / 1_000L;
+    }
+
+    public long getP50Micros() {
+        return p50Nanos / 1_000L;
+    }
+
+    public long getP99Micros() {
+        return p99Nanos / 1_000L;
+    }
+
+    public long getMaxMicros() {
+        return maxNanos / 1_000L;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return count + "x, mean " + getMeanMicros() + "us, p50 " + getP50Micros() + "us, p99 " + getP99Micros() + "us, max " + getMaxMicros() + "us";
+    }
+}
@@ -0,0 +1,493 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Lines read back from the server's own log files, for whatever was logged before the console
+// subscribed (startup, or before a plugin reload).
+//
+// Nothing is read until someone scrolls past the rest of the history. The files are then
+// memory-mapped a block at a time and walked backwards from the end, newest file first, only
+// as far as needed. Each record found takes the next lower sequence below endSeq, and the file
+// position of every INDEX_INTERVAL-th record is remembered so runs can be re-read forwards
+// without walking again.
+//
+// A record is a line matching the line pattern plus the lines after it that do not (stack
+// traces, multi-line messages). Records stamped at or after the cutoff are skipped, since the
+// console received those itself. With a floor, the walk also ends at the first record stamped
+// at or before it, since something older already holds those.
+//
+// Reads may come from any thread and are serialized on this.
+final class LogBackfill implements LogHistory, Closeable {
+    // Live numbering starts here when there is no older history, leaving the sequences below
+    // it to the log files.
+    static final long SEQ_SPACE = 1L << 40;
+    private static final int INDEX_INTERVAL = 256;
+    // Files are mapped in blocks of BLOCK_BYTES, each mapping running MAX_LINE_BYTES into the
+    // next block so a line starting in it can be decoded without remapping.
+    private static final long BLOCK_BYTES = 32L * 1024 * 1024;
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+    // Only this much of a line is decoded to tell whether it starts a record.
+    private static final int HEADER_BYTES = 512;
+    // Lines walked per call; the walk picks up where it stopped on the next scroll.
+    private static final int WALK_LIMIT = 1 << 16;
+    private static final long NOT_A_HEADER = Long.MIN_VALUE;
+    private static final String DEFAULT_LOGGER = "ServerLog";
+
+    private final Path directory;
+    private final String glob;
+    private final Pattern linePattern;
+    private final boolean hasLevel;
+    private final boolean hasLogger;
+    private final DateTimeFormatter timeFormat;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final long cutoffMillis;
+    private final long floorMillis;
+    private final long endSeq;
+    // Everything below is guarded by this. Oldest file first; null until the first read.
+    private MappedLog[] logs;
+    private boolean closed;
+    // Oldest record found so far.
+    private long frontierSeq;
+    private int frontierLog;
+    private long frontierOffset;
+    private long frontierMillis = Long.MAX_VALUE;
+    // The backwards walk continues with the line that ends just before walkEnd in walkLog.
+    private int walkLog;
+    private long walkEnd;
+    private boolean exhausted;
+    // Descending by sequence.
+    private long[] idxSeq = new long[64];
+    private long[] idxMillis = new long[64];
+    private long[] idxOffset = new long[64];
+    private int[] idxLog = new int[64];
+    private int idxCount;
+
+    // linePattern needs named groups time and message, and may have level and logger.
+    // timeFormat must produce a full date and time.
+    LogBackfill(@Nonnull Path directory, @Nonnull String glob, @Nonnull Pattern linePattern, @Nonnull DateTimeFormatter timeFormat,
+                long cutoffMillis, long endSeq) {
+        this(directory, glob, linePattern, timeFormat, cutoffMillis, Long.MIN_VALUE, endSeq);
+    }
+
+    LogBackfill(@Nonnull Path directory, @Nonnull String glob, @Nonnull Pattern linePattern, @Nonnull DateTimeFormatter timeFormat,
+                long cutoffMillis, long floorMillis, long endSeq) {
+        String source = linePattern.pattern();
+        if (!source.contains("(?<time>") || !source.contains("(?<message>")) {
+            throw new IllegalArgumentException("Backfill line pattern needs (?<time>...) and (?<message>...) groups");
+        }
+        this.directory = directory;
+        this.glob = glob;
+        this.linePattern = linePattern;
+        this.hasLevel = source.contains("(?<level>");
+        this.hasLogger = source.contains("(?<logger>");
+        this.timeFormat = timeFormat;
+        this.cutoffMillis = cutoffMillis;
+        this.floorMillis = floorMillis;
+        this.endSeq = endSeq;
+        this.frontierSeq = endSeq;
+    }
+
+    // Sequences below this belong to the log files.
+    long nextSeq() {
+        return endSeq;
+    }
+
+    // Until the walk reaches the oldest file's start the oldest record is unknown, so anything
+    // down to 0 may still turn up.
+    @Override
+    public synchronized long firstSeq() {
+        return exhausted ? frontierSeq : 0;
+    }
+
+    @Override
+    public synchronized int read(long fromSeq, int max, @Nonnull LoggerRegistry loggers, @Nonnull LogBuffer into) {
+        if (closed || fromSeq >= endSeq || max <= 0) {
+            return 0;
+        }
+        try {
+            walk(fromSeq, Long.MIN_VALUE);
+            long start = Math.max(fromSeq, frontierSeq);
+            if (start >= endSeq) {
+                return 0;
+            }
+            int entry = indexAtOrBelow(start);
+            long seq = entry >= 0 ? idxSeq[entry] : frontierSeq;
+            RecordReader reader = entry >= 0 ? new RecordReader(idxLog[entry], idxOffset[entry]) : new RecordReader(frontierLog, frontierOffset);
+            int read = 0;
+            while (read < max && seq < endSeq && reader.next()) {
+                if (seq >= start) {
+                    if (read == 0) {
+                        into.reset(seq);
+                    }
+                    into.append(reader.millis, reader.level, loggers.intern(reader.logger), reader.message);
+                    read++;
+                }
+                seq++;
+            }
+            return read;
+        } catch (IOException e) {
+            fail(e);
+            return 0;
+        }
+    }
+
+    // Newest backfilled sequence logged at or before the given time, or -1 if none was found.
+    synchronized long seqAtOrBefore(long millis) {
+        if (closed) {
+            return -1;
+        }
+        try {
+            walk(Long.MIN_VALUE, millis);
+            if (frontierMillis > millis) {
+                return -1;
+            }
+            // Timestamps only ever fall going backwards, so the first entry at or before the
+            // time is the newest one.
+            int entry = 0;
+            while (entry < idxCount && idxMillis[entry] > millis) {
+                entry++;
+            }
+            long seq = entry < idxCount ? idxSeq[entry] : frontierSeq;
+            RecordReader reader = entry < idxCount ? new RecordReader(idxLog[entry], idxOffset[entry]) : new RecordReader(frontierLog, frontierOffset);
+            long found = -1;
+            while (seq < endSeq && reader.next() && reader.millis <= millis) {
+                found = seq++;
+            }
+            return found;
+        } catch (IOException e) {
+            fail(e);
+            return -1;
+        }
+    }
+
+    // Walks another stretch towards the start of the oldest file. Returns false once the start
+    // of the backfilled history is known.
+    synchronized boolean walkOlder() {
+        if (closed) {
+            return false;
+        }
+        try {
+            walk(Long.MIN_VALUE, Long.MIN_VALUE);
+        } catch (IOException e) {
+            fail(e);
+        }
+        return !exhausted;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (logs == null) {
+            return;
+        }
+        IOException failure = null;
+        for (MappedLog log : logs) {
+            try {
+                log.channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        logs = new MappedLog[0];
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Walks backwards until a record at or below targetSeq, or logged at or before
+    // targetMillis, has been found, the files run out or WALK_LIMIT lines have been looked at.
+    private void walk(long targetSeq, long targetMillis) throws IOException {
+        if (logs == null) {
+            openLogs();
+        }
+        int lines = 0;
+        while (!exhausted && frontierSeq > targetSeq && frontierMillis > targetMillis && lines < WALK_LIMIT) {
+            if (walkEnd <= 0) {
+                if (--walkLog < 0) {
+                    exhausted = true;
+                } else {
+                    walkEnd = logs[walkLog].size;
+                }
+                continue;
+            }
+            MappedLog log = logs[walkLog];
+            long start = log.lineStart(walkEnd);
+            long millis = headerMillis(log.decode(start, walkEnd, HEADER_BYTES));
+            walkEnd = start;
+            lines++;
+            if (millis == NOT_A_HEADER || millis >= cutoffMillis) {
+                continue;
+            }
+            if (millis <= floorMillis) {
+                exhausted = true;
+                break;
+            }
+            if (frontierSeq == 0) {
+                // Out of sequence numbers below the console's own lines.
+                exhausted = true;
+                break;
+            }
+            long seq = --frontierSeq;
+            frontierLog = walkLog;
+            frontierOffset = start;
+            frontierMillis = millis;
+            if (seq % INDEX_INTERVAL == 0) {
+                addIndex(seq, millis, walkLog, start);
+            }
+        }
+    }
+
+    private void openLogs() throws IOException {
+        List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path path : stream) {
+                if (Files.isRegularFile(path)) {
+                    found.add(path);
+                }
+            }
+        }
+        List<Long> modified = new ArrayList<>(found.size());
+        for (Path path : found) {
+            modified.add(Files.getLastModifiedTime(path).toMillis());
+        }
+        Integer[] order = new Integer[found.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(modified::get).thenComparing(i -> found.get(i).getFileName().toString()));
+        List<MappedLog> opened = new ArrayList<>(found.size());
+        for (int i : order) {
+            try {
+                FileChannel channel = FileChannel.open(found.get(i), StandardOpenOption.READ);
+                // Sizes are fixed now; whatever is written later reached the console live.
+                opened.add(new MappedLog(channel, channel.size()));
+            } catch (IOException e) {
+                // Rotated away or unreadable; skip it.
+            }
+        }
+        logs = opened.toArray(new MappedLog[0]);
+        walkLog = logs.length;
+        walkEnd = 0;
+    }
+
+    private void fail(@Nonnull IOException e) {
+        if (!exhausted) {
+            HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Reading server log files for the console failed, stopping backfill");
+        }
+        exhausted = true;
+    }
+
+    private void addIndex(long seq, long millis, int log, long offset) {
+        if (idxCount == idxSeq.length) {
+            idxSeq = Arrays.copyOf(idxSeq, idxCount * 2);
+            idxMillis = Arrays.copyOf(idxMillis, idxCount * 2);
+            idxOffset = Arrays.copyOf(idxOffset, idxCount * 2);
+            idxLog = Arrays.copyOf(idxLog, idxCount * 2);
+        }
+        idxSeq[idxCount] = seq;
+        idxMillis[idxCount] = millis;
+        idxOffset[idxCount] = offset;
+        idxLog[idxCount] = log;
+        idxCount++;
+    }
+
+    // Index of the newest entry at or below seq, or -1 if every entry is newer.
+    private int indexAtOrBelow(long seq) {
+        int lo = 0;
+        int hi = idxCount - 1;
+        int best = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (idxSeq[mid] <= seq) {
+                best = mid;
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return best;
+    }
+
+    @Nullable
+    private Matcher header(@Nonnull String line) {
+        Matcher matcher = linePattern.matcher(line);
+        return matcher.lookingAt() ? matcher : null;
+    }
+
+    private long headerMillis(@Nonnull String line) {
+        Matcher matcher = header(line);
+        return matcher != null ? parseMillis(matcher) : NOT_A_HEADER;
+    }
+
+    private long parseMillis(@Nonnull Matcher matcher) {
+        try {
+            return LocalDateTime.parse(matcher.group("time"), timeFormat).atZone(zone).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return NOT_A_HEADER;
+        }
+    }
+
+    private static int levelValue(@Nullable String name) {
+        if (name == null) {
+            return Level.INFO.intValue();
+        }
+        String upper = name.trim().toUpperCase(Locale.ROOT);
+        Level level = switch (upper) {
+            case "WARN" -> Level.WARNING;
+            case "ERROR", "FATAL" -> Level.SEVERE;
+            case "DEBUG" -> Level.FINE;
+            case "TRACE" -> Level.FINEST;
+            default -> null;
+        };
+        if (level != null) {
+            return level.intValue();
+        }
+        try {
+            return Level.parse(upper).intValue();
+        } catch (IllegalArgumentException e) {
+            return Level.INFO.intValue();
+        }
+    }
+
+    // Reads records forwards from a record start, crossing into newer files as needed.
+    private final class RecordReader {
+        private int log;
+        private long position;
+        long millis;
+        int level;
+        String logger;
+        String message;
+
+        RecordReader(int log, long position) {
+            this.log = log;
+            this.position = position;
+        }
+
+        boolean next() throws IOException {
+            while (log < logs.length) {
+                MappedLog file = logs[log];
+                if (position >= file.size) {
+                    log++;
+                    position = 0;
+                    continue;
+                }
+                long end = file.lineEnd(position);
+                Matcher matcher = header(file.decode(position, end, MAX_LINE_BYTES));
+                position = end;
+                long parsed = matcher != null ? parseMillis(matcher) : NOT_A_HEADER;
+                if (parsed == NOT_A_HEADER || parsed >= cutoffMillis || parsed <= floorMillis) {
+                    continue;
+                }
+                millis = parsed;
+                level = hasLevel ? levelValue(matcher.group("level")) : Level.INFO.intValue();
+                String name = hasLogger ? matcher.group("logger") : null;
+                logger = name != null && !name.isBlank() ? name.trim() : DEFAULT_LOGGER;
+                StringBuilder text = new StringBuilder(matcher.group("message"));
+                // Continuation lines up to the next record, capped like a single line.
+                while (position < file.size) {
+                    long lineEnd = file.lineEnd(position);
+                    String line = file.decode(position, lineEnd, MAX_LINE_BYTES);
+                    if (header(line) != null) {
+                        break;
+                    }
+                    if (text.length() < MAX_LINE_BYTES) {
+                        text.append('\n').append(line);
+                    }
+                    position = lineEnd;
+                }
+                message = text.toString();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class MappedLog {
+        final FileChannel channel;
+        final long size;
+        private MappedByteBuffer block;
+        private long blockStart = -1;
+
+        MappedLog(@Nonnull FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        // Start of the line whose terminator (or the end of the file) sits just before end.
+        long lineStart(long end) throws IOException {
+            long position = end - 1;
+            if (position >= 0 && byteAt(position) == '\n') {
+                position--;
+            }
+            while (position >= 0 && byteAt(position) != '\n') {
+                position--;
+            }
+            return position + 1;
+        }
+
+        // Offset just past the line starting at start, terminator included.
+        long lineEnd(long start) throws IOException {
+            for (long position = start; position < size; position++) {
+                if (byteAt(position) == '\n') {
+                    return position + 1;
+                }
+            }
+            return size;
+        }
+
+        // The line in [start, end) without its terminator, cut to at most limit bytes.
+        @Nonnull
+        String decode(long start, long end, int limit) throws IOException {
+            if (end > start && byteAt(end - 1) == '\n') {
+                end--;
+            }
+            if (end > start && byteAt(end - 1) == '\r') {
+                end--;
+            }
+            int length = (int) Math.min(end - start, Math.min(limit, MAX_LINE_BYTES));
+            if (length <= 0) {
+                return "";
+            }
+            map(start);
+            byte[] bytes = new byte[length];
+            block.get((int) (start - blockStart), bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private byte byteAt(long position) throws IOException {
+            map(position);
+            return block.get((int) (position - blockStart));
+        }
+
+        private void map(long position) throws IOException {
+            if (block != null && position >= blockStart && position < blockStart + BLOCK_BYTES) {
+                return;
+            }
+            long start = position / BLOCK_BYTES * BLOCK_BYTES;
+            block = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, BLOCK_BYTES + MAX_LINE_BYTES));
+            blockStart = start;
+        }
+    }
+}
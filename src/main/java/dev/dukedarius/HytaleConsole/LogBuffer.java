@@ -0,0 +1,603 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongPredicate;
+
+// Retained log lines stored column by column. Lines are split by level into retention tiers,
+// each a ring of its own, so a flood of verbose lines cannot push out the errors. Each appended
+// line gets the next sequence number; a tier evicts its oldest line once it is full, and while
+// the buffer is over its memory budget lines are evicted from the lowest tier first. Sequences
+// are ascending but stop being contiguous once the tiers evict at different rates.
+//
+// Single writer, lock-free readers. Each slot's sequence doubles as a stamp: the writer clears
+// it before overwriting the slot and publishes the new sequence afterwards, so a reader that
+// checked contains(seq) before reading a line's columns and validate(seq) after knows it read
+// that line and not a half-written replacement. Repeat counts of the newest line still change
+// in place and may be read slightly out of date.
+final class LogBuffer {
+    private static final long EMPTY = -1;
+    // Rough heap cost of a line besides its strings: one entry in every column plus the directory.
+    private static final long LINE_BYTES = 80;
+    // Header, hash and backing array header of a String; the text itself is assumed Latin-1.
+    private static final long STRING_BYTES = 40;
+    private static final int MAX_TIER_CAPACITY = 1 << 24;
+
+    // Lowest level value each tier takes, ascending; tier 0 also takes everything below.
+    private final int[] tierFloors;
+    private final int[] tierBases;
+    private final int[] tierMasks;
+    // Positions of each tier's oldest line and of its next line; a line's slot is
+    // base + (position & mask). With a single tier the position is the sequence itself.
+    private final AtomicLongArray tierHeads;
+    private final AtomicLongArray tierTails;
+    private final int capacity;
+    // Sequence held by each slot, or EMPTY while it is free or being written.
+    private final AtomicLongArray seqs;
+    private final long[] millis;
+    private final int[] levels;
+    private final int[] loggerIds;
+    private final String[] messages;
+    // How many identical consecutive records were folded into the line, and when the last one came.
+    private final int[] repeats;
+    private final long[] lastMillis;
+    // Records from the same logger that flood control dropped just before this line.
+    private final int[] suppressedBefore;
+    // Lowercased search text per line, only kept by buffers that back the text index.
+    private final String[] searchTexts;
+    // Heap the text index charged for the line's postings; likewise only with the index.
+    private final int[] indexBytes;
+    // Formatted stack trace of the line's throwable, shared between lines with the same trace.
+    private final String[] traces;
+    // Finds the slot of a sequence once tiers make them sparse; null with a single tier.
+    @Nullable
+    private final Directory directory;
+    private final long budgetBytes;
+    // Only read by the writer, or for stats.
+    private long usedBytes;
+    private long indexOverhead;
+    private long evicted;
+    private volatile long firstSeq;
+    private volatile long nextSeq;
+    // Every line from here on is still retained.
+    private volatile long completeSeq;
+
+    LogBuffer(int capacity) {
+        this(capacity, 0L, false);
+    }
+
+    LogBuffer(int capacity, long startSeq, boolean keepSearchText) {
+        this(new int[]{Integer.MIN_VALUE}, new int[]{checkCapacity(capacity)}, Long.MAX_VALUE, startSeq, keepSearchText);
+    }
+
+    // Tier capacities are rounded up to a power of two.
+    LogBuffer(@Nonnull int[] tierFloors, @Nonnull int[] tierCapacities, long budgetBytes, long startSeq, boolean keepSearchText) {
+        if (tierFloors.length == 0 || tierFloors.length != tierCapacities.length) {
+            throw new IllegalArgumentException("need one capacity per tier");
+        }
+        int tiers = tierFloors.length;
+        this.tierFloors = tierFloors.clone();
+        this.tierBases = new int[tiers];
+        this.tierMasks = new int[tiers];
+        this.tierHeads = new AtomicLongArray(tiers);
+        this.tierTails = new AtomicLongArray(tiers);
+        int total = 0;
+        for (int t = 0; t < tiers; t++) {
+            if (t > 0 && tierFloors[t] <= tierFloors[t - 1]) {
+                throw new IllegalArgumentException("tier floors must be ascending");
+            }
+            int size = Integer.highestOneBit(Math.min(MAX_TIER_CAPACITY, Math.max(2, tierCapacities[t])) - 1) << 1;
+            tierBases[t] = total;
+            tierMasks[t] = size - 1;
+            total += size;
+        }
+        this.capacity = total;
+        this.seqs = new AtomicLongArray(total);
+        this.millis = new long[total];
+        this.levels = new int[total];
+        this.loggerIds = new int[total];
+        this.messages = new String[total];
+        this.repeats = new int[total];
+        this.lastMillis = new long[total];
+        this.suppressedBefore = new int[total];
+        this.searchTexts = keepSearchText ? new String[total] : null;
+        this.indexBytes = keepSearchText ? new int[total] : null;
+        this.traces = new String[total];
+        this.directory = tiers > 1 ? new Directory(total) : null;
+        this.budgetBytes = Math.max(1, budgetBytes);
+        reset(startSeq);
+    }
+
+    private static int checkCapacity(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two >= 2: " + capacity);
+        }
+        return capacity;
+    }
+
+    // Empties the buffer so the next appended line gets startSeq.
+    void reset(long startSeq) {
+        Arrays.fill(messages, null);
+        Arrays.fill(traces, null);
+        if (searchTexts != null) {
+            Arrays.fill(searchTexts, null);
+        }
+        if (directory != null) {
+            directory.clear();
+        }
+        for (int i = 0; i < capacity; i++) {
+            seqs.lazySet(i, EMPTY);
+        }
+        for (int t = 0; t < tierFloors.length; t++) {
+            tierHeads.set(t, directory != null ? 0L : startSeq);
+            tierTails.set(t, directory != null ? 0L : startSeq);
+        }
+        usedBytes = 0;
+        indexOverhead = 0;
+        firstSeq = startSeq;
+        nextSeq = startSeq;
+        completeSeq = startSeq;
+    }
+
+    long append(long timeMillis, int level, int loggerId, @Nonnull String message) {
+        return append(timeMillis, level, loggerId, message, null);
+    }
+
+    long append(long timeMillis, int level, int loggerId, @Nonnull String message, @Nullable String searchText) {
+        return append(timeMillis, level, loggerId, message, searchText, null, 0);
+    }
+
+    // Everything about the line is written before its sequence is, so a reader that finds the
+    // sequence also finds its trace and suppression count. Traces are shared, so the budget
+    // only counts the reference.
+    long append(long timeMillis, int level, int loggerId, @Nonnull String message, @Nullable String searchText,
+                @Nullable String trace, int suppressedBefore) {
+        int tier = tierOf(level);
+        long position = tierTails.get(tier);
+        if (position - tierHeads.get(tier) > tierMasks[tier]) {
+            evictOldest(tier);
+        }
+        long seq = nextSeq;
+        int slot = slotAt(tier, position);
+        seqs.set(slot, EMPTY);
+        // Keep the column writes below from becoming visible before the slot is marked empty.
+        VarHandle.storeStoreFence();
+        millis[slot] = timeMillis;
+        levels[slot] = level;
+        loggerIds[slot] = loggerId;
+        messages[slot] = message;
+        repeats[slot] = 1;
+        lastMillis[slot] = timeMillis;
+        this.suppressedBefore[slot] = suppressedBefore;
+        traces[slot] = trace;
+        if (searchTexts != null) {
+            searchTexts[slot] = searchText;
+            indexBytes[slot] = 0;
+        }
+        // Before the sequence: a reader that finds it in the slot must also find the slot by it.
+        if (directory != null) {
+            directory.put(seq, slot);
+        }
+        seqs.lazySet(slot, seq);
+        tierTails.lazySet(tier, position + 1);
+        nextSeq = seq + 1;
+        usedBytes += bytes(slot);
+        evictOverBudget();
+        return seq;
+    }
+
+    // Adds the text index's postings for the newest line to its cost, evicting older lines if
+    // that goes over budget. Only for buffers that keep search text, which back the index.
+    void chargeIndex(long seq, int bytes) {
+        int slot = slot(seq);
+        indexBytes[slot] += bytes;
+        usedBytes += bytes;
+        evictOverBudget();
+    }
+
+    // The rest of the text index's heap, which belongs to no one line, counted as a whole.
+    void setIndexOverhead(long bytes) {
+        if (bytes != indexOverhead) {
+            usedBytes += bytes - indexOverhead;
+            indexOverhead = bytes;
+            evictOverBudget();
+        }
+    }
+
+    private void evictOverBudget() {
+        while (usedBytes > budgetBytes && evictForBudget()) {
+            // Keep going until we are back under budget.
+        }
+        firstSeq = oldestRetained();
+    }
+
+    // Evicts the oldest line of the lowest non-empty tier, never the newest line.
+    private boolean evictForBudget() {
+        for (int t = 0; t < tierFloors.length; t++) {
+            long head = tierHeads.get(t);
+            if (tierTails.get(t) > head && seqs.get(slotAt(t, head)) != nextSeq - 1) {
+                evictOldest(t);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evictOldest(int tier) {
+        long head = tierHeads.get(tier);
+        int slot = slotAt(tier, head);
+        long seq = seqs.get(slot);
+        usedBytes -= bytes(slot);
+        // Readers that see the new head will also see the slot as no longer holding seq.
+        tierHeads.set(tier, head + 1);
+        seqs.set(slot, EMPTY);
+        messages[slot] = null;
+        traces[slot] = null;
+        if (searchTexts != null) {
+            searchTexts[slot] = null;
+        }
+        if (directory != null) {
+            directory.remove(seq);
+        }
+        evicted++;
+        completeSeq = Math.max(completeSeq, seq + 1);
+    }
+
+    private long oldestRetained() {
+        long first = nextSeq;
+        for (int t = 0; t < tierFloors.length; t++) {
+            long head = tierHeads.get(t);
+            if (tierTails.get(t) > head) {
+                first = Math.min(first, seqs.get(slotAt(t, head)));
+            }
+        }
+        return first;
+    }
+
+    private long bytes(int slot) {
+        long bytes = LINE_BYTES + STRING_BYTES + messages[slot].length();
+        if (searchTexts == null) {
+            return bytes;
+        }
+        String searchText = searchTexts[slot];
+        return bytes + indexBytes[slot] + (searchText != null ? STRING_BYTES + searchText.length() : 0);
+    }
+
+    // Tier that keeps lines of this level.
+    int tierOf(int level) {
+        for (int t = tierFloors.length - 1; t > 0; t--) {
+            if (level >= tierFloors[t]) {
+                return t;
+            }
+        }
+        return 0;
+    }
+
+    // Folds another occurrence into an existing line.
+    void repeat(long seq, long timeMillis) {
+        int slot = slot(seq);
+        repeats[slot]++;
+        lastMillis[slot] = Math.max(lastMillis[slot], timeMillis);
+    }
+
+    void setRepeats(long seq, int count, long lastTimeMillis) {
+        int slot = slot(seq);
+        repeats[slot] = count;
+        lastMillis[slot] = lastTimeMillis;
+    }
+
+    private int slotAt(int tier, long position) {
+        return tierBases[tier] + (int) (position & tierMasks[tier]);
+    }
+
+    // Only meaningful for retained sequences; callers check contains() first. A line evicted
+    // under a concurrent reader maps to some other slot, which validate() then rejects.
+    private int slot(long seq) {
+        if (directory == null) {
+            return (int) (seq & tierMasks[0]);
+        }
+        return Math.max(0, directory.get(seq));
+    }
+
+    // Sequence at a tier position, or EMPTY if the tier has evicted past it.
+    private long seqAt(int tier, long position) {
+        long seq = seqs.get(slotAt(tier, position));
+        return tierHeads.get(tier) <= position ? seq : EMPTY;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    int size() {
+        long size = 0;
+        for (int t = 0; t < tierFloors.length; t++) {
+            size += tierSize(t);
+        }
+        return (int) size;
+    }
+
+    boolean isEmpty() {
+        return firstSeq == nextSeq;
+    }
+
+    int tiers() {
+        return tierFloors.length;
+    }
+
+    int tierFloor(int tier) {
+        return tierFloors[tier];
+    }
+
+    // Oldest sequence a tier retains, or nextSeq() when it is empty. Writer only.
+    long tierFirstSeq(int tier) {
+        long head = tierHeads.get(tier);
+        return tierTails.get(tier) > head ? seqs.get(slotAt(tier, head)) : nextSeq;
+    }
+
+    int tierSize(int tier) {
+        long head = tierHeads.get(tier);
+        return (int) Math.max(0, tierTails.get(tier) - head);
+    }
+
+    int tierCapacity(int tier) {
+        return tierMasks[tier] + 1;
+    }
+
+    long usedBytes() {
+        return usedBytes;
+    }
+
+    long budgetBytes() {
+        return budgetBytes;
+    }
+
+    // Lines evicted since the buffer was created; only ever grows.
+    long evictedCount() {
+        return evicted;
+    }
+
+    // Oldest retained sequence, or nextSeq() when empty.
+    long firstSeq() {
+        return firstSeq;
+    }
+
+    // Oldest sequence from which no line has been evicted. Below it only the longer-kept tiers remain.
+    long completeSeq() {
+        return completeSeq;
+    }
+
+    // Sequence the next appended line will get; the newest retained line is nextSeq() - 1.
+    long nextSeq() {
+        return nextSeq;
+    }
+
+    boolean contains(long seq) {
+        return seq >= 0 && seqs.get(slot(seq)) == seq;
+    }
+
+    // True if seq is still retained, so the columns read for it since contains() belong to it.
+    boolean validate(long seq) {
+        VarHandle.loadLoadFence();
+        return contains(seq);
+    }
+
+    // Newest retained sequence logged at or before the given time, or -1 if every line is newer.
+    long seqAtOrBefore(long timeMillis) {
+        long best = -1;
+        for (int t = 0; t < tierFloors.length; t++) {
+            long head = tierHeads.get(t);
+            long lo = head;
+            long hi = tierTails.get(t);
+            // First position in [lo, hi) logged after timeMillis.
+            while (lo < hi) {
+                long mid = (lo + hi) >>> 1;
+                if (millis[slotAt(t, mid)] <= timeMillis) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            if (lo > head) {
+                best = Math.max(best, seqAt(t, lo - 1));
+            }
+        }
+        return best;
+    }
+
+    // Visits the sequences retained from fromSeq on, oldest first, merging the tiers: the rows
+    // appended since a consumer last looked. Safe from any thread; lines evicted during the
+    // scan are skipped. Returns false if the visitor stopped.
+    boolean scanAscending(long fromSeq, @Nonnull LongPredicate visitor) {
+        int tiers = tierFloors.length;
+        long[] positions = new long[tiers];
+        long[] ends = new long[tiers];
+        for (int t = 0; t < tiers; t++) {
+            ends[t] = tierTails.get(t);
+            positions[t] = lowerPosition(t, tierHeads.get(t), ends[t], fromSeq);
+        }
+        while (true) {
+            int next = -1;
+            long lowest = Long.MAX_VALUE;
+            for (int t = 0; t < tiers; t++) {
+                long seq = EMPTY;
+                while (positions[t] < ends[t] && (seq = seqAt(t, positions[t])) == EMPTY) {
+                    // Evicted while we were scanning; resume at the tier's new oldest line.
+                    positions[t] = Math.max(positions[t] + 1, tierHeads.get(t));
+                }
+                if (seq != EMPTY && seq < lowest) {
+                    next = t;
+                    lowest = seq;
+                }
+            }
+            if (next < 0) {
+                return true;
+            }
+            positions[next]++;
+            if (!visitor.test(lowest)) {
+                return false;
+            }
+        }
+    }
+
+    // First position in [lo, hi) of the tier whose sequence is at least seq. Evicted positions
+    // read as EMPTY and sort first, as they would have anyway.
+    private long lowerPosition(int tier, long lo, long hi, long seq) {
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (seqAt(tier, mid) < seq) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    long millis(long seq) {
+        return millis[slot(seq)];
+    }
+
+    int level(long seq) {
+        return levels[slot(seq)];
+    }
+
+    int loggerId(long seq) {
+        return loggerIds[slot(seq)];
+    }
+
+    // Never null, even when read under an eviction that validate() will reject.
+    @Nonnull
+    String message(long seq) {
+        String message = messages[slot(seq)];
+        return message != null ? message : "";
+    }
+
+    int repeats(long seq) {
+        return repeats[slot(seq)];
+    }
+
+    long lastMillis(long seq) {
+        return lastMillis[slot(seq)];
+    }
+
+    int suppressedBefore(long seq) {
+        return suppressedBefore[slot(seq)];
+    }
+
+    @Nullable
+    String trace(long seq) {
+        return traces[slot(seq)];
+    }
+
+    @Nullable
+    String searchText(long seq) {
+        return searchTexts != null ? searchTexts[slot(seq)] : null;
+    }
+
+    // Open-addressing sequence -> slot map. Deletion shifts later entries back instead of
+    // leaving tombstones, so probe chains stay short under constant churn.
+    // Sequence -> slot map, read without locks. Entries are never moved or reused: a removed
+    // sequence leaves a tombstone, and once live entries and tombstones fill half the table the
+    // live ones are copied to a fresh table that replaces it. A reader therefore finds every
+    // sequence put before it looked, and for a removed one at worst the slot it used to have,
+    // which contains() then rejects.
+    private static final class Directory {
+        private static final long FREE = -1;
+        private static final long REMOVED = -2;
+        private final int size;
+        private volatile Table table;
+
+        Directory(int lines) {
+            // Over three slots per line, so a rebuild comes at most once per half a buffer of puts.
+            size = Integer.highestOneBit(Math.max(2, lines) - 1) << 2;
+            table = new Table(size);
+        }
+
+        int get(long seq) {
+            return table.get(seq);
+        }
+
+        void put(long seq, int slot) {
+            Table current = table;
+            if (current.used * 2 >= size) {
+                Table next = new Table(size);
+                for (int i = 0; i < size; i++) {
+                    long key = current.keys.get(i);
+                    if (key >= 0) {
+                        next.put(key, current.slots[i]);
+                    }
+                }
+                table = next;
+                current = next;
+            }
+            current.put(seq, slot);
+        }
+
+        void remove(long seq) {
+            Table current = table;
+            for (int i = current.home(seq); ; i = (i + 1) & current.mask) {
+                long key = current.keys.get(i);
+                if (key == FREE) {
+                    return;
+                }
+                if (key == seq) {
+                    current.keys.set(i, REMOVED);
+                    return;
+                }
+            }
+        }
+
+        void clear() {
+            table = new Table(size);
+        }
+
+        private static final class Table {
+            final AtomicLongArray keys;
+            final int[] slots;
+            final int mask;
+            // Live entries plus tombstones.
+            int used;
+
+            Table(int size) {
+                keys = new AtomicLongArray(size);
+                slots = new int[size];
+                mask = size - 1;
+                for (int i = 0; i < size; i++) {
+                    keys.lazySet(i, FREE);
+                }
+            }
+
+            int get(long seq) {
+                for (int i = home(seq); ; i = (i + 1) & mask) {
+                    long key = keys.get(i);
+                    if (key == seq) {
+                        return slots[i];
+                    }
+                    if (key == FREE) {
+                        return -1;
+                    }
+                }
+            }
+
+            // The slot is written before the key is published.
+            void put(long seq, int slot) {
+                int i = home(seq);
+                while (keys.get(i) != FREE) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = slot;
+                keys.lazySet(i, seq);
+                used++;
+            }
+
+            int home(long seq) {
+                long h = seq * 0x9E3779B97F4A7C15L;
+                return (int) (h ^ (h >>> 32)) & mask;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+// Writes the rows matching a filter, oldest first, to a gzipped text file. Runs on its own
+// thread and reads rows the same way the console does (lock-free from memory, in chunks from
+// history), so neither the world thread nor the refresh scheduler waits on it, and memory stays
+// at one history chunk plus the writer's buffers however much is exported.
+final class LogExport implements Runnable {
+    private static final int WRITE_BUFFER_BYTES = 64 * 1024;
+    private static final long PROGRESS_INTERVAL_NANOS = 2_000_000_000L;
+
+    private final LogUIManager manager;
+    private final RowFormatter formatter;
+    private final RowFilter filter;
+    private final Path target;
+    private final Consumer<String> progress;
+    private final Consumer<LogExport> onDone;
+    private volatile boolean cancelled;
+
+    LogExport(@Nonnull LogUIManager manager, @Nonnull RowFormatter formatter, @Nonnull RowFilter filter, @Nonnull Path target,
+              @Nonnull Consumer<String> progress, @Nonnull Consumer<LogExport> onDone) {
+        this.manager = manager;
+        this.formatter = formatter;
+        this.filter = filter;
+        this.target = target;
+        this.progress = progress;
+        this.onDone = onDone;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    @Override
+    public void run() {
+        // Written under a temporary name so a half-written export is never mistaken for a whole one.
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        long[] written = {0};
+        long[] reportAt = {System.nanoTime() + PROGRESS_INTERVAL_NANOS};
+        try {
+            Files.createDirectories(target.getParent());
+            IOException[] failure = {null};
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(partial), WRITE_BUFFER_BYTES), StandardCharsets.UTF_8), WRITE_BUFFER_BYTES)) {
+                manager.forEachMatching(filter, () -> cancelled, (buffer, seq) -> {
+                    if (cancelled) {
+                        return false;
+                    }
+                    String line = formatter.exportLine(buffer, seq);
+                    // Rows evicted while we formatted them may have been half overwritten.
+                    if (!buffer.validate(seq)) {
+                        return true;
+                    }
+                    try {
+                        out.write(line);
+                        out.write('\n');
+                    } catch (IOException e) {
+                        failure[0] = e;
+                        return false;
+                    }
+                    written[0]++;
+                    if (System.nanoTime() - reportAt[0] >= 0) {
+                        reportAt[0] = System.nanoTime() + PROGRESS_INTERVAL_NANOS;
+                        progress.accept("Exported " + written[0] + " lines so far...");
+                    }
+                    return true;
+                });
+            }
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+            if (cancelled) {
+                Files.deleteIfExists(partial);
+                progress.accept("Console export cancelled");
+                return;
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            progress.accept("Exported " + written[0] + " lines (" + Files.size(target) / 1024 + " KB) to " + target.toAbsolutePath());
+        } catch (IOException e) {
+            HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Console export failed");
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                // Nothing more we can do about it.
+            }
+            progress.accept("Console export failed: " + e.getMessage());
+        } finally {
+            onDone.accept(this);
+        }
+    }
+}
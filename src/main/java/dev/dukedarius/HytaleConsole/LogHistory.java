@@ -0,0 +1,13 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+
+// Lines older than the in-memory buffer, read back in ascending runs of sequence numbers.
+interface LogHistory {
+    // Oldest sequence that may still be read.
+    long firstSeq();
+
+    // Reads up to max consecutive lines starting at fromSeq (or the oldest line after it) into
+    // the buffer, which is reset to start at the first line read. Returns the number read.
+    int read(long fromSeq, int max, @Nonnull LoggerRegistry loggers, @Nonnull LogBuffer into);
+}
@@ -0,0 +1,471 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+// Parsed form of the text typed into #LogTextFilter. Supported terms (all ANDed together):
+//   word, "a phrase"        line contains the text (case-insensitive)
+//   /regex/                 line matches the regex (case-insensitive)
+//   level>=WARNING          also >, <=, <, = and level:X (same as >=)
+//   logger:World*           glob or logger:/regex/; several logger: terms are ORed
+//   since:5m, until:12:30   relative durations or a time of day
+// Any term can be negated with a leading '-'. Column checks (level, time, logger) are ordered
+// before the text checks, which only run on rows that survived them.
+final class LogQuery {
+    static final LogQuery EMPTY = new LogQuery("", List.of(), "", new RowPredicate[0], new TextPredicate[0], null);
+
+    private static final int COST_COLUMN = 0;
+    private static final int COST_LOGGER = 1;
+    private static final int COST_CONTAINS = 10;
+    private static final int COST_REGEX = 50;
+
+    final String source;
+    // Terms as typed, in order.
+    final List<String> terms;
+    // Terms joined by single spaces, with since:/until: replaced by the time they resolved to;
+    // queries with equal resolved text match the same rows.
+    final String resolved;
+    final RowPredicate[] rowPredicates;
+    final TextPredicate[] textPredicates;
+    // Longest positive substring term, if any; the text index can serve it.
+    @Nullable
+    final String indexNeedle;
+
+    private LogQuery(@Nonnull String source, @Nonnull List<String> terms, @Nonnull String resolved, @Nonnull RowPredicate[] rowPredicates,
+                     @Nonnull TextPredicate[] textPredicates, @Nullable String indexNeedle) {
+        this.source = source;
+        this.terms = terms;
+        this.resolved = resolved;
+        this.rowPredicates = rowPredicates;
+        this.textPredicates = textPredicates;
+        this.indexNeedle = indexNeedle;
+    }
+
+    boolean isEmpty() {
+        return rowPredicates.length == 0 && textPredicates.length == 0;
+    }
+
+    // True if every row this query matches also matches previous, so only previous's matches
+    // need testing. Conservative: it recognizes added terms and plain words typed further.
+    boolean narrows(@Nonnull LogQuery previous) {
+        if (previous.terms.size() > terms.size()) {
+            return false;
+        }
+        boolean previousHasLogger = false;
+        for (String term : previous.terms) {
+            String lower = term.toLowerCase(Locale.ROOT);
+            if (lower.contains("since:") || lower.contains("until:")) {
+                // Relative times move with the clock.
+                return false;
+            }
+            previousHasLogger |= lower.startsWith("logger:");
+        }
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            if (i < previous.terms.size()) {
+                String before = previous.terms.get(i);
+                if (term.equals(before)) {
+                    continue;
+                }
+                String needle = plainNeedle(term);
+                String previousNeedle = plainNeedle(before);
+                if (needle == null || previousNeedle == null || !needle.contains(previousNeedle)) {
+                    return false;
+                }
+            } else if (previousHasLogger && term.toLowerCase(Locale.ROOT).startsWith("logger:")) {
+                // Logger terms are ORed, so another one widens the match.
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Lowercased text of a positive plain word or phrase term, or null for any other term.
+    @Nullable
+    private static String plainNeedle(@Nonnull String term) {
+        String lower = term.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("-") || lower.startsWith("logger:") || lower.startsWith("since:") || lower.startsWith("until:")
+                || (lower.length() > 5 && lower.startsWith("level") && "<>=:".indexOf(lower.charAt(5)) >= 0)
+                || (term.length() >= 2 && term.startsWith("/") && term.endsWith("/"))) {
+            return null;
+        }
+        return unquote(term).toLowerCase(Locale.ROOT);
+    }
+
+    interface RowPredicate {
+        boolean test(@Nonnull LogBuffer buffer, long seq);
+
+        int cost();
+    }
+
+    interface TextPredicate {
+        // The haystack is the lowercased "logger [time][LEVEL]  message" line.
+        boolean test(@Nonnull String haystack);
+
+        int cost();
+    }
+
+    static final class ParseException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        ParseException(@Nonnull String message) {
+            super(message);
+        }
+    }
+
+    @Nonnull
+    static LogQuery parse(@Nonnull String text, @Nonnull LoggerRegistry loggers, long nowMillis) throws ParseException {
+        String source = text.trim();
+        if (source.isEmpty()) {
+            return EMPTY;
+        }
+        List<RowPredicate> rowPredicates = new ArrayList<>();
+        List<TextPredicate> textPredicates = new ArrayList<>();
+        List<Pattern> loggerPatterns = new ArrayList<>();
+        String indexNeedle = null;
+        List<String> terms = tokenize(source);
+        List<String> resolved = new ArrayList<>(terms.size());
+
+        for (String token : terms) {
+            String resolvedToken = token;
+            boolean negated = token.length() > 1 && token.charAt(0) == '-';
+            String term = negated ? token.substring(1) : token;
+            String lower = term.toLowerCase(Locale.ROOT);
+
+            if (lower.length() > 5 && lower.startsWith("level") && "<>=:".indexOf(lower.charAt(5)) >= 0) {
+                rowPredicates.add(negate(parseLevel(term), negated));
+            } else if (lower.startsWith("logger:")) {
+                Pattern pattern = parseLoggerPattern(unquote(term.substring("logger:".length())));
+                if (negated) {
+                    rowPredicates.add(negate(new LoggerMatch(loggers, List.of(pattern)), true));
+                } else {
+                    loggerPatterns.add(pattern);
+                }
+            } else if (lower.startsWith("since:")) {
+                long from = parseTime(term.substring("since:".length()), nowMillis);
+                rowPredicates.add(negate(columnPredicate((b, s) -> b.millis(s) >= from), negated));
+                resolvedToken = (negated ? "-" : "") + "since:@" + from;
+            } else if (lower.startsWith("until:")) {
+                long to = parseTime(term.substring("until:".length()), nowMillis);
+                rowPredicates.add(negate(columnPredicate((b, s) -> b.millis(s) <= to), negated));
+                resolvedToken = (negated ? "-" : "") + "until:@" + to;
+            } else if (term.length() >= 2 && term.startsWith("/") && term.endsWith("/")) {
+                Pattern pattern = compile(term.substring(1, term.length() - 1));
+                textPredicates.add(negate(textPredicate(h -> pattern.matcher(h).find(), COST_REGEX), negated));
+            } else {
+                String needle = unquote(term).toLowerCase(Locale.ROOT);
+                if (needle.isEmpty()) {
+                    continue;
+                }
+                textPredicates.add(negate(new Contains(needle), negated));
+                if (!negated && TextIndex.isIndexable(needle) && (indexNeedle == null || needle.length() > indexNeedle.length())) {
+                    indexNeedle = needle;
+                }
+            }
+            resolved.add(resolvedToken);
+        }
+        if (!loggerPatterns.isEmpty()) {
+            rowPredicates.add(new LoggerMatch(loggers, loggerPatterns));
+        }
+        rowPredicates.sort(Comparator.comparingInt(RowPredicate::cost));
+        textPredicates.sort(Comparator.comparingInt(TextPredicate::cost));
+        return new LogQuery(source, List.copyOf(terms), String.join(" ", resolved), rowPredicates.toArray(new RowPredicate[0]), textPredicates.toArray(new TextPredicate[0]), indexNeedle);
+    }
+
+    // Splits on whitespace, keeping "quoted phrases" and /regexes/ together.
+    @Nonnull
+    private static List<String> tokenize(@Nonnull String source) throws ParseException {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < source.length()) {
+            if (Character.isWhitespace(source.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            if (source.charAt(i) == '-') {
+                i++;
+            }
+            if (i < source.length() && source.charAt(i) == '/') {
+                int end = i + 1;
+                while (end < source.length() && (source.charAt(end) != '/' || source.charAt(end - 1) == '\\')) {
+                    end++;
+                }
+                if (end >= source.length()) {
+                    throw new ParseException("Missing closing / in " + source.substring(start));
+                }
+                i = end + 1;
+            } else {
+                boolean quoted = false;
+                while (i < source.length() && (quoted || !Character.isWhitespace(source.charAt(i)))) {
+                    if (source.charAt(i) == '"') {
+                        quoted = !quoted;
+                    }
+                    i++;
+                }
+                if (quoted) {
+                    throw new ParseException("Missing closing quote in " + source.substring(start));
+                }
+            }
+            tokens.add(source.substring(start, i));
+        }
+        return tokens;
+    }
+
+    @Nonnull
+    private static String unquote(@Nonnull String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    @Nonnull
+    private static RowPredicate parseLevel(@Nonnull String term) throws ParseException {
+        String rest = term.substring("level".length());
+        String op;
+        if (rest.startsWith(">=") || rest.startsWith("<=")) {
+            op = rest.substring(0, 2);
+        } else if (rest.startsWith(">") || rest.startsWith("<") || rest.startsWith("=") || rest.startsWith(":")) {
+            op = rest.substring(0, 1);
+        } else {
+            throw new ParseException("Expected level>=, level<=, level>, level<, level= or level: in " + term);
+        }
+        int value = parseLevelValue(rest.substring(op.length()));
+        return switch (op) {
+            case ">=", ":" -> columnPredicate((b, s) -> b.level(s) >= value);
+            case "<=" -> columnPredicate((b, s) -> b.level(s) <= value);
+            case ">" -> columnPredicate((b, s) -> b.level(s) > value);
+            case "<" -> columnPredicate((b, s) -> b.level(s) < value);
+            default -> columnPredicate((b, s) -> b.level(s) == value);
+        };
+    }
+
+    private static int parseLevelValue(@Nonnull String value) throws ParseException {
+        String name = unquote(value).toUpperCase(Locale.ROOT);
+        if (name.equals("WARN")) {
+            name = Level.WARNING.getName();
+        } else if (name.equals("ERROR")) {
+            name = Level.SEVERE.getName();
+        }
+        try {
+            // Standard level names or a raw integer value.
+            return Level.parse(name).intValue();
+        } catch (IllegalArgumentException e) {
+            throw new ParseException("Unknown level " + value);
+        }
+    }
+
+    @Nonnull
+    private static Pattern parseLoggerPattern(@Nonnull String value) throws ParseException {
+        if (value.isEmpty()) {
+            throw new ParseException("logger: needs a name or pattern");
+        }
+        if (value.length() >= 2 && value.startsWith("/") && value.endsWith("/")) {
+            return compile("^(?:" + value.substring(1, value.length() - 1) + ")$");
+        }
+        StringBuilder regex = new StringBuilder("^");
+        int literalStart = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literalStart) {
+                    regex.append(Pattern.quote(value.substring(literalStart, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                literalStart = i + 1;
+            }
+        }
+        if (literalStart < value.length()) {
+            regex.append(Pattern.quote(value.substring(literalStart)));
+        }
+        return compile(regex.append('$').toString());
+    }
+
+    @Nonnull
+    private static Pattern compile(@Nonnull String regex) throws ParseException {
+        try {
+            return Pattern.compile(regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+        } catch (PatternSyntaxException e) {
+            throw new ParseException("Bad regex: " + e.getDescription());
+        }
+    }
+
+    // Accepts a duration back from now (5m, 1h30m) or a time of day today (12:30, 12:30:15).
+    private static long parseTime(@Nonnull String value, long nowMillis) throws ParseException {
+        String text = unquote(value);
+        if (text.indexOf(':') >= 0) {
+            try {
+                LocalTime time = LocalTime.parse(text);
+                ZoneId zone = ZoneId.systemDefault();
+                return LocalDate.now(zone).atTime(time).atZone(zone).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                throw new ParseException("Bad time of day " + text);
+            }
+        }
+        long ago = parseAgo(text);
+        if (ago < 0) {
+            throw new ParseException("Bad duration " + text + " (try 30s, 5m, 2h)");
+        }
+        return nowMillis - ago;
+    }
+
+    // Parses durations like "90s", "10m" or "1h30m"; returns -1 if the text is not one.
+    static long parseAgo(@Nonnull String text) {
+        String s = text.trim().toLowerCase();
+        if (s.isEmpty()) {
+            return -1;
+        }
+        long total = 0;
+        long number = -1;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                number = (number < 0 ? 0 : number * 10) + (c - '0');
+                continue;
+            }
+            long unit = switch (c) {
+                case 's' -> 1_000L;
+                case 'm' -> 60_000L;
+                case 'h' -> 3_600_000L;
+                case 'd' -> 86_400_000L;
+                default -> -1L;
+            };
+            if (unit < 0 || number < 0) {
+                return -1;
+            }
+            total += number * unit;
+            number = -1;
+        }
+        // A bare number means minutes.
+        return number >= 0 ? total + number * 60_000L : total;
+    }
+
+    @Nonnull
+    private static RowPredicate columnPredicate(@Nonnull ColumnTest test) {
+        return new RowPredicate() {
+            @Override
+            public boolean test(@Nonnull LogBuffer buffer, long seq) {
+                return test.test(buffer, seq);
+            }
+
+            @Override
+            public int cost() {
+                return COST_COLUMN;
+            }
+        };
+    }
+
+    @Nonnull
+    private static TextPredicate textPredicate(@Nonnull Predicate<String> test, int cost) {
+        return new TextPredicate() {
+            @Override
+            public boolean test(@Nonnull String haystack) {
+                return test.test(haystack);
+            }
+
+            @Override
+            public int cost() {
+                return cost;
+            }
+        };
+    }
+
+    @Nonnull
+    private static RowPredicate negate(@Nonnull RowPredicate predicate, boolean negated) {
+        if (!negated) {
+            return predicate;
+        }
+        return new RowPredicate() {
+            @Override
+            public boolean test(@Nonnull LogBuffer buffer, long seq) {
+                return !predicate.test(buffer, seq);
+            }
+
+            @Override
+            public int cost() {
+                return predicate.cost();
+            }
+        };
+    }
+
+    @Nonnull
+    private static TextPredicate negate(@Nonnull TextPredicate predicate, boolean negated) {
+        return negated ? textPredicate(h -> !predicate.test(h), predicate.cost()) : predicate;
+    }
+
+    @FunctionalInterface
+    private interface ColumnTest {
+        boolean test(@Nonnull LogBuffer buffer, long seq);
+    }
+
+    private record Contains(String needle) implements TextPredicate {
+        @Override
+        public boolean test(@Nonnull String haystack) {
+            return haystack.contains(needle);
+        }
+
+        @Override
+        public int cost() {
+            return COST_CONTAINS;
+        }
+    }
+
+    // Matches logger ids against name patterns, remembering the answer per id so each logger
+    // name is only run through the patterns once.
+    private static final class LoggerMatch implements RowPredicate {
+        private static final byte UNKNOWN = 0;
+        private static final byte YES = 1;
+        private static final byte NO = 2;
+
+        private final LoggerRegistry loggers;
+        private final List<Pattern> patterns;
+        private volatile byte[] results = new byte[64];
+
+        LoggerMatch(@Nonnull LoggerRegistry loggers, @Nonnull List<Pattern> patterns) {
+            this.loggers = loggers;
+            this.patterns = patterns;
+        }
+
+        @Override
+        public boolean test(@Nonnull LogBuffer buffer, long seq) {
+            int id = buffer.loggerId(seq);
+            byte[] cache = results;
+            if (id < cache.length && cache[id] != UNKNOWN) {
+                return cache[id] == YES;
+            }
+            String name = loggers.name(id);
+            boolean match = false;
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(name).matches()) {
+                    match = true;
+                    break;
+                }
+            }
+            if (id >= cache.length) {
+                cache = Arrays.copyOf(cache, Math.max(cache.length * 2, id + 1));
+            }
+            cache[id] = match ? YES : NO;
+            results = cache;
+            return match;
+        }
+
+        @Override
+        public int cost() {
+            return COST_LOGGER;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.logging.LogRecord;
+
+/**
+ * Bounded multi-producer/single-consumer ring that the logger backend publishes into.
+ * Any server thread may {@link #add} a record; only the console refresh thread drains it.
+ * When the ring is full new records are counted as dropped instead of blocking the caller.
+ * <p>
+ * The consumer can {@link #armWakeup() arm} a one-shot wake-up before going idle; the next
+ * producer to publish then runs the wake-up callback, so an idle consumer needs no polling.
+ */
+public final class LogRecordSink extends AbstractList<LogRecord> {
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<LogRecord> slots;
+    // Per-slot sequence: equals the producer position when the slot is free and position + 1 once published.
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicBoolean armed = new AtomicBoolean();
+    @Nullable
+    private volatile Runnable wakeup;
+    // Only written by the consumer; volatile so size() is sane from other threads.
+    private volatile long head;
+
+    public LogRecordSink(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two >= 2: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean add(LogRecord record) {
+        if (record == null) {
+            return false;
+        }
+        long pos = tail.get();
+        while (true) {
+            int index = (int) (pos & mask);
+            long seq = sequences.get(index);
+            long diff = seq - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.lazySet(index, record);
+                    sequences.lazySet(index, pos + 1);
+                    if (armed.get() && armed.compareAndSet(true, false)) {
+                        Runnable callback = wakeup;
+                        if (callback != null) {
+                            callback.run();
+                        }
+                    }
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                dropped.increment();
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code limit} published records to {@code consumer} in arrival order.
+     * Must only be called from the single consumer thread.
+     */
+    public int drain(@Nonnull Consumer<? super LogRecord> consumer, int limit) {
+        long pos = head;
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (pos & mask);
+            if (sequences.get(index) != pos + 1) {
+                break;
+            }
+            LogRecord record = slots.get(index);
+            slots.lazySet(index, null);
+            sequences.lazySet(index, pos + capacity);
+            pos++;
+            drained++;
+            consumer.accept(record);
+        }
+        head = pos;
+        return drained;
+    }
+
+    /**
+     * Sets the callback run by the first producer to publish after {@link #armWakeup()}.
+     * It runs on the producer's thread, so it must be cheap and must not log.
+     */
+    public void setWakeup(@Nullable Runnable wakeup) {
+        this.wakeup = wakeup;
+    }
+
+    /**
+     * Arms the wake-up before the consumer goes idle. Returns true if records are already
+     * waiting, in which case the consumer should keep going instead of relying on the callback.
+     */
+    public boolean armWakeup() {
+        armed.set(true);
+        if (tail.get() == head) {
+            return false;
+        }
+        // A producer got in first; if it has not claimed the wake-up yet, take it back.
+        return armed.compareAndSet(true, false);
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    @Override
+    public LogRecord get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return slots.get((int) ((head + index) & mask));
+    }
+
+    @Override
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public void clear() {
+        drain(r -> {}, capacity);
+    }
+}
@@ -3,19 +3,24 @@ package dev.dukedarius.HytaleConsole;
 import javax.annotation.Nonnull;
 
 public final class LogRow {
+    public final long seq;
     public final String prefix;
     public final String logger;
     public final String loggerName;
     public final int levelValue;
     public final String suffix;
     public final String colorHex;
+    // Changes while identical records keep being folded into the row.
+    public final int repeats;
 
-    public LogRow(@Nonnull String prefix, @Nonnull String logger, @Nonnull String loggerName, int levelValue, @Nonnull String suffix, @Nonnull String colorHex) {
+    public LogRow(long seq, @Nonnull String prefix, @Nonnull String logger, @Nonnull String loggerName, int levelValue, @Nonnull String suffix, @Nonnull String colorHex, int repeats) {
+        this.seq = seq;
         this.prefix = prefix;
         this.logger = logger;
         this.loggerName = loggerName;
         this.levelValue = levelValue;
         this.suffix = suffix;
         this.colorHex = colorHex;
+        this.repeats = repeats;
     }
 }
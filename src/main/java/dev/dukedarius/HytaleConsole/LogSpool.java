@@ -0,0 +1,547 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Append-only on-disk history of every ingested line, so the console can page past the
+// in-memory buffer and survive restarts.
+//
+// Each segment is a pair of files named after the first sequence it holds:
+//   <seq>.spool  records of [int length][long seq][long millis][int level][short len][logger utf8][int len][message utf8]
+//                optionally followed by [int repeats][long last millis][int suppressed before] for collapsed lines
+//   <seq>.idx    one [long seq][long millis][long offset] entry every INDEX_INTERVAL records
+// The index is sparse, so a seek by sequence or time reads at most INDEX_INTERVAL records.
+//
+// Appends happen on the refresh thread; reads may happen on any thread and only hold the
+// lock long enough to pick a segment and a starting offset.
+final class LogSpool implements LogHistory, Closeable {
+    private static final String DATA_SUFFIX = ".spool";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final int INDEX_INTERVAL = 256;
+    private static final int INDEX_ENTRY_BYTES = 24;
+    private static final int RECORD_HEADER_BYTES = 4 + 8 + 8 + 4;
+    private static final int RECORD_TRAILER_BYTES = 4 + 8 + 4;
+    private static final int WRITE_BUFFER_BYTES = 256 * 1024;
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    // Longer messages are cut to this, since the reader takes a longer record for a torn write.
+    static final int MAX_MESSAGE_BYTES = MAX_RECORD_BYTES - (RECORD_HEADER_BYTES - 4 + 2 + Short.MAX_VALUE + 4 + RECORD_TRAILER_BYTES);
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    // Oldest first; guarded by this.
+    private final List<Segment> segments = new ArrayList<>();
+    private final ByteBuffer pendingData = ByteBuffer.allocate(WRITE_BUFFER_BYTES);
+    private final ByteBuffer pendingIndex = ByteBuffer.allocate(INDEX_ENTRY_BYTES * 64);
+    private FileChannel dataOut;
+    private FileChannel indexOut;
+    private Segment active;
+    private long nextSeq;
+    private boolean closed;
+
+    private LogSpool(@Nonnull Path directory, long segmentBytes, long maxBytes, long maxAgeMillis) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    static LogSpool open(@Nonnull Path directory, long segmentBytes, long maxBytes, long maxAgeMillis) throws IOException {
+        Files.createDirectories(directory);
+        LogSpool spool = new LogSpool(directory, segmentBytes, maxBytes, maxAgeMillis);
+        spool.load();
+        return spool;
+    }
+
+    // Sequence the next line should get so numbering continues across restarts.
+    synchronized long nextSeq() {
+        return nextSeq;
+    }
+
+    @Override
+    public synchronized long firstSeq() {
+        return segments.isEmpty() ? nextSeq : segments.get(0).firstSeq;
+    }
+
+    // Time of the oldest spooled line, or Long.MAX_VALUE when the spool is empty.
+    synchronized long firstMillis() {
+        return segments.isEmpty() || segments.get(0).idxCount == 0 ? Long.MAX_VALUE : segments.get(0).idxMillis[0];
+    }
+
+    // Time of the newest spooled line, or Long.MIN_VALUE when the spool is empty.
+    synchronized long lastMillis() {
+        return segments.isEmpty() ? Long.MIN_VALUE : segments.get(segments.size() - 1).lastMillis;
+    }
+
+    synchronized boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    synchronized void append(long seq, long millis, int level, @Nonnull String logger, @Nonnull String message,
+                             int repeats, long lastMillis, int suppressedBefore) throws IOException {
+        if (closed) {
+            return;
+        }
+        if (active == null) {
+            startSegment(seq);
+        }
+        byte[] loggerBytes = utf8(logger, Short.MAX_VALUE);
+        byte[] messageBytes = utf8(message, MAX_MESSAGE_BYTES);
+        boolean trailer = repeats > 1 || suppressedBefore > 0;
+        int length = RECORD_HEADER_BYTES - 4 + 2 + loggerBytes.length + 4 + messageBytes.length + (trailer ? RECORD_TRAILER_BYTES : 0);
+
+        long offset = active.size;
+        if (active.sinceIndex == 0) {
+            if (pendingIndex.remaining() < INDEX_ENTRY_BYTES) {
+                flushPending();
+            }
+            pendingIndex.putLong(seq).putLong(millis).putLong(offset);
+            active.addIndex(seq, millis, offset);
+        }
+        active.sinceIndex = (active.sinceIndex + 1) % INDEX_INTERVAL;
+
+        ByteBuffer out = pendingData;
+        if (out.remaining() < length + 4) {
+            flushPending();
+            if (out.capacity() < length + 4) {
+                out = ByteBuffer.allocate(length + 4);
+            }
+        }
+        out.putInt(length).putLong(seq).putLong(millis).putInt(level);
+        out.putShort((short) loggerBytes.length).put(loggerBytes);
+        out.putInt(messageBytes.length).put(messageBytes);
+        if (trailer) {
+            out.putInt(repeats).putLong(lastMillis).putInt(suppressedBefore);
+        }
+        if (out != pendingData) {
+            out.flip();
+            while (out.hasRemaining()) {
+                dataOut.write(out);
+            }
+        }
+
+        active.size = offset + length + 4;
+        active.lastSeq = seq;
+        active.lastMillis = millis;
+        nextSeq = seq + 1;
+        if (active.size >= segmentBytes) {
+            flushPending();
+            closeActive();
+            enforceRetention(System.currentTimeMillis());
+        }
+    }
+
+    // UTF-8 bytes of s, cut to at most max bytes without splitting a character.
+    @Nonnull
+    static byte[] utf8(@Nonnull String s, int max) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= max) {
+            return bytes;
+        }
+        int end = max;
+        // Back up over continuation bytes (10xxxxxx) to the start of the cut character.
+        while (end > 0 && (bytes[end] & 0xC0) == 0x80) {
+            end--;
+        }
+        return Arrays.copyOf(bytes, end);
+    }
+
+    // Writes buffered records to disk and drops segments that fell out of the retention window.
+    synchronized void flush() throws IOException {
+        flushPending();
+        enforceRetention(System.currentTimeMillis());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        flushPending();
+        closeActive();
+    }
+
+    @Override
+    public int read(long fromSeq, int max, @Nonnull LoggerRegistry loggers, @Nonnull LogBuffer into) {
+        List<Segment> candidates;
+        long offset;
+        synchronized (this) {
+            int start = segmentFor(fromSeq);
+            if (start < 0) {
+                return 0;
+            }
+            candidates = new ArrayList<>(segments.subList(start, segments.size()));
+            offset = candidates.get(0).offsetFor(fromSeq);
+        }
+        int read = 0;
+        for (Segment segment : candidates) {
+            try (FileChannel channel = FileChannel.open(segment.data, StandardOpenOption.READ)) {
+                RecordReader reader = new RecordReader(channel, offset);
+                while (read < max && reader.next()) {
+                    if (reader.seq < fromSeq) {
+                        continue;
+                    }
+                    if (read == 0) {
+                        into.reset(reader.seq);
+                    } else if (reader.seq != into.nextSeq()) {
+                        return read;
+                    }
+                    long seq = into.append(reader.millis, reader.level, loggers.intern(reader.logger()), reader.message(),
+                            null, null, reader.suppressedBefore);
+                    if (reader.repeats > 1) {
+                        into.setRepeats(seq, reader.repeats, reader.lastMillis);
+                    }
+                    read++;
+                }
+            } catch (IOException e) {
+                // The segment was rotated away underneath us; treat it as the end of history.
+                return read;
+            }
+            if (read >= max) {
+                break;
+            }
+            offset = 0;
+        }
+        return read;
+    }
+
+    // Newest spooled sequence logged at or before the given time, or -1 if the spool starts later.
+    long seqAtOrBefore(long millis) {
+        Segment segment = null;
+        long offset;
+        synchronized (this) {
+            for (int i = segments.size() - 1; i >= 0; i--) {
+                Segment candidate = segments.get(i);
+                if (candidate.idxCount > 0 && candidate.idxMillis[0] <= millis) {
+                    segment = candidate;
+                    break;
+                }
+            }
+            if (segment == null) {
+                return -1;
+            }
+            offset = segment.offsetForMillis(millis);
+        }
+        long found = -1;
+        try (FileChannel channel = FileChannel.open(segment.data, StandardOpenOption.READ)) {
+            RecordReader reader = new RecordReader(channel, offset);
+            while (reader.next() && reader.millis <= millis) {
+                found = reader.seq;
+            }
+        } catch (IOException e) {
+            return found;
+        }
+        return found;
+    }
+
+    private int segmentFor(long seq) {
+        if (segments.isEmpty()) {
+            return -1;
+        }
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (segments.get(i).firstSeq <= seq) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private void startSegment(long firstSeq) throws IOException {
+        Segment segment = new Segment(directory, firstSeq);
+        dataOut = FileChannel.open(segment.data, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        indexOut = FileChannel.open(segment.index, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        segments.add(segment);
+        active = segment;
+    }
+
+    private void flushPending() throws IOException {
+        if (dataOut != null && pendingData.position() > 0) {
+            pendingData.flip();
+            while (pendingData.hasRemaining()) {
+                dataOut.write(pendingData);
+            }
+        }
+        pendingData.clear();
+        if (indexOut != null && pendingIndex.position() > 0) {
+            pendingIndex.flip();
+            while (pendingIndex.hasRemaining()) {
+                indexOut.write(pendingIndex);
+            }
+        }
+        pendingIndex.clear();
+    }
+
+    private void closeActive() throws IOException {
+        try {
+            if (dataOut != null) {
+                dataOut.close();
+            }
+            if (indexOut != null) {
+                indexOut.close();
+            }
+        } finally {
+            dataOut = null;
+            indexOut = null;
+            active = null;
+        }
+    }
+
+    private void enforceRetention(long now) throws IOException {
+        long total = 0;
+        for (Segment segment : segments) {
+            total += segment.size;
+        }
+        while (!segments.isEmpty() && segments.get(0) != active) {
+            Segment oldest = segments.get(0);
+            if (total <= maxBytes && oldest.lastMillis >= now - maxAgeMillis) {
+                break;
+            }
+            segments.remove(0);
+            total -= oldest.size;
+            Files.deleteIfExists(oldest.data);
+            Files.deleteIfExists(oldest.index);
+        }
+    }
+
+    private void load() throws IOException {
+        List<Segment> found = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + DATA_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                try {
+                    found.add(new Segment(directory, Long.parseLong(name.substring(0, name.length() - DATA_SUFFIX.length()))));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours.
+                }
+            }
+        }
+        found.sort(Comparator.comparingLong(s -> s.firstSeq));
+        for (Segment segment : found) {
+            recover(segment);
+            if (segment.lastSeq < 0) {
+                Files.deleteIfExists(segment.data);
+                Files.deleteIfExists(segment.index);
+                continue;
+            }
+            segments.add(segment);
+            nextSeq = segment.lastSeq + 1;
+        }
+        enforceRetention(System.currentTimeMillis());
+    }
+
+    // Loads the sparse index, then scans the tail of the segment to find the last complete
+    // record, re-indexing anything the index missed and truncating a torn final write.
+    private void recover(@Nonnull Segment segment) throws IOException {
+        if (Files.exists(segment.index)) {
+            ByteBuffer idx = ByteBuffer.wrap(Files.readAllBytes(segment.index));
+            while (idx.remaining() >= INDEX_ENTRY_BYTES) {
+                segment.addIndex(idx.getLong(), idx.getLong(), idx.getLong());
+            }
+        }
+        long scanFrom = segment.idxCount > 0 ? segment.idxOffset[segment.idxCount - 1] : 0;
+        int sinceIndex = 0;
+        try (FileChannel channel = FileChannel.open(segment.data, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileChannel index = FileChannel.open(segment.index, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long end = scanFrom;
+            if (scanFrom >= channel.size()) {
+                // The index points past the data (lost write); start over for this segment.
+                segment.idxCount = 0;
+                index.truncate(0);
+                end = 0;
+            }
+            RecordReader reader = new RecordReader(channel, end);
+            index.position(segment.idxCount * (long) INDEX_ENTRY_BYTES);
+            index.truncate(segment.idxCount * (long) INDEX_ENTRY_BYTES);
+            while (reader.next()) {
+                boolean indexed = segment.idxCount > 0 && segment.idxOffset[segment.idxCount - 1] == reader.offset;
+                if (!indexed && sinceIndex == 0) {
+                    segment.addIndex(reader.seq, reader.millis, reader.offset);
+                    ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES).putLong(reader.seq).putLong(reader.millis).putLong(reader.offset);
+                    entry.flip();
+                    index.write(entry);
+                }
+                sinceIndex = (sinceIndex + 1) % INDEX_INTERVAL;
+                segment.lastSeq = reader.seq;
+                segment.lastMillis = reader.millis;
+                end = reader.end;
+            }
+            if (channel.size() > end) {
+                channel.truncate(end);
+            }
+            segment.size = end;
+        }
+    }
+
+    private static final class Segment {
+        final Path data;
+        final Path index;
+        final long firstSeq;
+        long lastSeq = -1;
+        long lastMillis;
+        long size;
+        int sinceIndex;
+        long[] idxSeq = new long[64];
+        long[] idxMillis = new long[64];
+        long[] idxOffset = new long[64];
+        int idxCount;
+
+        Segment(@Nonnull Path directory, long firstSeq) {
+            String base = String.format("%019d", firstSeq);
+            this.data = directory.resolve(base + DATA_SUFFIX);
+            this.index = directory.resolve(base + INDEX_SUFFIX);
+            this.firstSeq = firstSeq;
+        }
+
+        void addIndex(long seq, long millis, long offset) {
+            if (idxCount == idxSeq.length) {
+                idxSeq = Arrays.copyOf(idxSeq, idxCount * 2);
+                idxMillis = Arrays.copyOf(idxMillis, idxCount * 2);
+                idxOffset = Arrays.copyOf(idxOffset, idxCount * 2);
+            }
+            idxSeq[idxCount] = seq;
+            idxMillis[idxCount] = millis;
+            idxOffset[idxCount] = offset;
+            idxCount++;
+        }
+
+        long offsetFor(long seq) {
+            int lo = 0;
+            int hi = idxCount - 1;
+            int best = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (idxSeq[mid] <= seq) {
+                    best = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return best < 0 ? 0 : idxOffset[best];
+        }
+
+        long offsetForMillis(long millis) {
+            int lo = 0;
+            int hi = idxCount - 1;
+            int best = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (idxMillis[mid] <= millis) {
+                    best = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return best < 0 ? 0 : idxOffset[best];
+        }
+    }
+
+    // Sequential decoder over a segment file starting at a record boundary.
+    private static final class RecordReader {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+        private long bufferStart;
+        long offset;
+        long end;
+        long seq;
+        long millis;
+        int level;
+        int repeats;
+        long lastMillis;
+        int suppressedBefore;
+        private int loggerStart;
+        private int loggerLength;
+        private int messageStart;
+        private int messageLength;
+
+        RecordReader(@Nonnull FileChannel channel, long position) {
+            this.channel = channel;
+            this.bufferStart = position;
+            this.end = position;
+            buffer.limit(0);
+        }
+
+        boolean next() throws IOException {
+            if (!ensure(4)) {
+                return false;
+            }
+            int length = buffer.getInt(buffer.position());
+            if (length < RECORD_HEADER_BYTES - 4 + 2 + 4 || length > MAX_RECORD_BYTES || !ensure(4 + length)) {
+                return false;
+            }
+            int base = buffer.position();
+            offset = bufferStart + base;
+            seq = buffer.getLong(base + 4);
+            millis = buffer.getLong(base + 12);
+            level = buffer.getInt(base + 20);
+            loggerLength = buffer.getShort(base + 24);
+            loggerStart = base + 26;
+            if (loggerLength < 0 || loggerStart + loggerLength + 4 > base + 4 + length) {
+                return false;
+            }
+            messageLength = buffer.getInt(loggerStart + loggerLength);
+            messageStart = loggerStart + loggerLength + 4;
+            int trailer = base + 4 + length - (messageStart + messageLength);
+            if (messageLength < 0 || (trailer != 0 && trailer != RECORD_TRAILER_BYTES)) {
+                return false;
+            }
+            if (trailer == 0) {
+                repeats = 1;
+                lastMillis = millis;
+                suppressedBefore = 0;
+            } else {
+                int at = messageStart + messageLength;
+                repeats = buffer.getInt(at);
+                lastMillis = buffer.getLong(at + 4);
+                suppressedBefore = buffer.getInt(at + 12);
+            }
+            buffer.position(base + 4 + length);
+            end = bufferStart + buffer.position();
+            return true;
+        }
+
+        String logger() {
+            return new String(buffer.array(), loggerStart, loggerLength, StandardCharsets.UTF_8);
+        }
+
+        String message() {
+            return new String(buffer.array(), messageStart, messageLength, StandardCharsets.UTF_8);
+        }
+
+        // Makes sure the next n bytes are in the buffer, compacting and growing it as needed.
+        private boolean ensure(int n) throws IOException {
+            if (buffer.remaining() >= n) {
+                return true;
+            }
+            bufferStart += buffer.position();
+            buffer.compact();
+            if (buffer.capacity() < n) {
+                ByteBuffer bigger = ByteBuffer.allocate(n);
+                buffer.flip();
+                bigger.put(buffer);
+                buffer = bigger;
+            }
+            while (buffer.position() < n) {
+                int read = channel.read(buffer, bufferStart + buffer.position());
+                if (read <= 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer.remaining() >= n;
+        }
+    }
+}
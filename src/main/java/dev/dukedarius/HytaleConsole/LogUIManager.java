@@ -8,28 +8,34 @@ import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.pages.PageManager;
 import com.hypixel.hytale.server.core.ui.DropdownEntryInfo;
 import com.hypixel.hytale.server.core.ui.LocalizableString;
-import com.hypixel.hytale.server.core.task.TaskRegistry;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import io.netty.handler.logging.LogLevel;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 import java.util.logging.LogRecord;
+import java.util.regex.Pattern;
 
 public class LogUIManager {
-    private static final int MAX_LINES = 5000;
     public static final String FILTER_ALL = "ALL";
     public static final String LEVEL_SEVERE = "SEVERE";
     public static final String LEVEL_WARNING = "WARNING";
@@ -39,23 +45,173 @@ public class LogUIManager {
     public static final String LEVEL_FINER = "FINER";
     public static final String LEVEL_FINEST = "FINEST";
     public static final String LEVEL_OFF = "OFF";
-    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm:ss")
-            .withZone(ZoneId.systemDefault());
+    public static final String VIEW_TAIL = "Tail";
+    public static final String VIEW_PIN = "Pin";
+    public static final String VIEW_NEWER = "Newer";
+    public static final String VIEW_OLDER = "Older";
+    public static final String VIEW_SCROLL_UP = "ScrollUp";
+    public static final String VIEW_SCROLL_DOWN = "ScrollDown";
+    public static final String VIEW_CLOSE_DETAIL = "CloseDetail";
+    private static final int SCROLL_STEP = 10;
+    private static final int SPOOL_CHUNK = 4096;
+    // The expanded line is wrapped and capped so one huge trace stays a reasonable UI update.
+    private static final int DETAIL_WRAP = 160;
+    private static final int DETAIL_MAX_CHARS = 16 * 1024;
+    private static final int SPOOL_SCAN_LIMIT = 1 << 16;
+    // Most log file lines copied into the spool at startup; see fillSpoolGap.
+    private static final int SPOOL_GAP_LINES = 1 << 16;
+    // A page may spend at most 1/SEND_BUDGET of wall time in sendUpdate.
+    private static final long SEND_BUDGET = 20;
+    // What one page's updates may ask of its client's connection and of the client applying them.
+    private static final long PAGE_BYTES_PER_SECOND = 256 * 1024;
+    private static final long PAGE_COMMANDS_PER_SECOND = 2000;
+    // Past this many unsent pages of new rows a diff is pointless; resend the window instead.
+    private static final int RESYNC_PAGES = 4;
+    // Retention tiers by level, lowest first; each keeps its own number of lines.
+    private static final int[] RETENTION_FLOORS = {Integer.MIN_VALUE, Level.INFO.intValue(), Level.WARNING.intValue(), Level.SEVERE.intValue()};
+    private static final String[] RETENTION_NAMES = {"Verbose", "Info", "Warning", "Severe"};
+    // Loggers quiet for this long drop out of the logger dropdown; checked once a minute.
+    private static final long LOGGER_LISTING_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final long LOGGER_EXPIRE_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final List<DropdownEntryInfo> MIN_LEVEL_ENTRIES = List.of(
+            new DropdownEntryInfo(LocalizableString.fromString(FILTER_ALL), FILTER_ALL),
+            new DropdownEntryInfo(LocalizableString.fromString(LEVEL_SEVERE), LEVEL_SEVERE),
+            new DropdownEntryInfo(LocalizableString.fromString(LEVEL_WARNING), LEVEL_WARNING),
+            new DropdownEntryInfo(LocalizableString.fromString(LEVEL_INFO), LEVEL_INFO),
+            new DropdownEntryInfo(LocalizableString.fromString(LEVEL_CONFIG), LEVEL_CONFIG),
+            new DropdownEntryInfo(LocalizableString.fromString(LEVEL_FINE), LEVEL_FINE),
+            new DropdownEntryInfo(LocalizableString.fromString(LEVEL_FINER), LEVEL_FINER),
+            new DropdownEntryInfo(LocalizableString.fromString(LEVEL_FINEST), LEVEL_FINEST),
+            new DropdownEntryInfo(LocalizableString.fromString(LEVEL_OFF), LEVEL_OFF));
+    private static final DateTimeFormatter EXPORT_FILE_FMT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneId.systemDefault());
 
-    private final CopyOnWriteArrayList<LogRecord> logQueue;
+    private final LogRecordSink logQueue;
     private final CopyOnWriteArrayList<LogUIPage> pages = new CopyOnWriteArrayList<>();
-    private final ArrayDeque<LogRow> rows = new ArrayDeque<>();
-    private final Set<String> loggerNames = new ConcurrentSkipListSet<>();
-    private ScheduledFuture<Void> refreshTask;
+    private final LogBuffer rows;
+    private final LoggerRegistry loggerNames = new LoggerRegistry();
+    private final RowFormatter formatter = new RowFormatter(loggerNames);
+    private final TextIndex textIndex = new TextIndex();
+    private final ViewCache views = new ViewCache();
+    private final ConsoleMetrics metrics = new ConsoleMetrics(this);
+    private final FloodControl flood;
+    private final TraceInterner traces = new TraceInterner();
+    private volatile LoggerEntries loggerEntries = new LoggerEntries(-1, List.of());
+    private long loggersExpiredNanos = System.nanoTime();
+    // Guarded by defaultSnapshot()'s lock.
+    @Nullable
+    private FilteredView defaultView;
+    @Nullable
+    private volatile Snapshot snapshot;
+    // Bumped whenever rows are appended or a collapsed row grows, so pages know to refresh.
+    private volatile long revision;
+    // Newest row, held back from the spool until no more repeats can be folded into it.
+    private long unspooledSeq = -1;
+    @Nullable
+    private volatile LogSpool spool;
+    @Nullable
+    private final LogBackfill backfill;
+    // At most one export runs at a time.
+    private final AtomicReference<LogExport> export = new AtomicReference<>();
+    @Nullable
+    private final TailServer tail;
+    private final RefreshScheduler scheduler;
+    private final long coalesceNanos;
+    private final long maxPageIntervalNanos;
+    private final long searchDebounceNanos;
 
-    public LogUIManager(@Nonnull CopyOnWriteArrayList<LogRecord> logQueue) {
+    public LogUIManager(@Nonnull LogRecordSink logQueue, @Nullable LogSpool spool, @Nonnull ConsoleConfig config) {
         this.logQueue = logQueue;
+        this.spool = spool;
+        this.coalesceNanos = config.getRefreshCoalesceNanos();
+        this.maxPageIntervalNanos = config.getRefreshMaxPageIntervalNanos();
+        this.searchDebounceNanos = config.getSearchDebounceNanos();
+        this.flood = new FloodControl(config.isCollapseRepeats(), config.getFloodRatePerSecond(), config.getFloodBurst(), config.getFloodSampleEvery());
+        this.scheduler = new RefreshScheduler(HytaleServer.SCHEDULED_EXECUTOR, this::refresh, coalesceNanos, maxPageIntervalNanos);
+        if (spool != null && !spool.isEmpty() && config.isBackfillEnabled()) {
+            fillSpoolGap(config, spool);
+        }
+        // Continue numbering after whatever the spool already holds so sequences stay unique.
+        long startSeq = spool != null && !spool.isEmpty() ? spool.nextSeq() : LogBackfill.SEQ_SPACE;
+        this.rows = new LogBuffer(RETENTION_FLOORS,
+                new int[]{config.getRetainVerboseLines(), config.getRetainInfoLines(), config.getRetainWarningLines(), config.getRetainSevereLines()},
+                config.getMemoryBudgetBytes(), startSeq, true);
+        this.backfill = config.isBackfillEnabled() ? openBackfill(config, spool, startSeq) : null;
+        this.tail = config.isTailEnabled() ? openTail(config.getTailAddress()) : null;
+    }
+
+    // The endpoint is bound here but only accepts clients once start() runs.
+    @Nullable
+    private TailServer openTail(@Nonnull String address) {
+        try {
+            return new TailServer(TailServer.parseAddress(address), this, formatter, metrics);
+        } catch (IllegalArgumentException | IOException e) {
+            HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Could not open the console tail endpoint on " + address);
+            return null;
+        }
+    }
+
+    // Lines logged between the spool's newest one and our subscribing (the end of the previous
+    // run and this startup) are only in the log files. The newest SPOOL_GAP_LINES of them are
+    // copied into the spool before live numbering starts after them. Unlike the older lines
+    // this cannot wait until someone scrolls back: live lines take the sequences after it.
+    private void fillSpoolGap(@Nonnull ConsoleConfig config, @Nonnull LogSpool target) {
+        long subscribedMillis = System.currentTimeMillis();
+        LogBackfill files;
+        try {
+            files = new LogBackfill(Paths.get(config.getBackfillDirectory()), config.getBackfillFileGlob(),
+                    Pattern.compile(config.getBackfillLinePattern()), DateTimeFormatter.ofPattern(config.getBackfillTimeFormat()),
+                    subscribedMillis, target.lastMillis(), SPOOL_GAP_LINES);
+        } catch (IllegalArgumentException e) {
+            // openBackfill reports the bad settings.
+            return;
+        }
+        try (files) {
+            while (files.walkOlder()) {
+                // Find the oldest line after the spool's newest.
+            }
+            LogBuffer chunk = new LogBuffer(SPOOL_CHUNK);
+            long from = files.firstSeq();
+            while (from < files.nextSeq() && files.read(from, SPOOL_CHUNK, loggerNames, chunk) > 0) {
+                for (long seq = chunk.firstSeq(); seq < chunk.nextSeq(); seq++) {
+                    target.append(target.nextSeq(), chunk.millis(seq), chunk.level(seq), loggerNames.name(chunk.loggerId(seq)),
+                            chunk.message(seq), 1, chunk.millis(seq), 0);
+                }
+                from = chunk.nextSeq();
+            }
+            target.flush();
+        } catch (IOException e) {
+            HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Could not copy log file lines into the console spool");
+        }
+    }
+
+    // Log file lines go below the oldest line we already have, and only those logged before it
+    // (or before we subscribed, give or take the files' timestamp precision) are taken.
+    // Nothing is read here; the files are only touched once someone scrolls that far back.
+    @Nullable
+    private static LogBackfill openBackfill(@Nonnull ConsoleConfig config, @Nullable LogSpool spool, long startSeq) {
+        boolean history = spool != null && !spool.isEmpty();
+        long endSeq = history ? spool.firstSeq() : startSeq;
+        if (endSeq <= 0) {
+            HytaleConsolePlugin.LOGGER.atWarning().log("The console spool leaves no sequence numbers for log file backfill; clear the spool folder to use it");
+            return null;
+        }
+        try {
+            return new LogBackfill(Paths.get(config.getBackfillDirectory()), config.getBackfillFileGlob(),
+                    Pattern.compile(config.getBackfillLinePattern()), DateTimeFormatter.ofPattern(config.getBackfillTimeFormat()),
+                    history ? spool.firstMillis() : System.currentTimeMillis(), endSeq);
+        } catch (IllegalArgumentException e) {
+            HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Invalid console backfill settings, log file backfill is disabled");
+            return null;
+        }
     }
     public void onMinLevelFilterChanged(@Nonnull LogUIPage page, @Nonnull String filter) {
-        String nextFilter = resolveMinLevelFilter(filter);
-        page.setMinLevelFilter(nextFilter);
-        page.updateFilterOptions(getLoggerFilterEntries(), getMinLevelEntries(), page.getLoggerFilter(), nextFilter, page.getTextFilter());
-        page.updateRows(getRowSnapshot(page.getLoggerFilter(), nextFilter, page.getTextFilter()));
+        page.submit(() -> {
+            String nextFilter = resolveMinLevelFilter(filter);
+            page.setMinLevelFilter(nextFilter);
+            page.updateFilterOptions(getLoggerFilterEntries(), page.getLoggerFilter(), nextFilter, page.getTextFilter());
+            applyFilter(page, typedQuery(page));
+            page.rebuildRows(getRowWindow(page));
+        });
     }
 
     private String resolveMinLevelFilter(@Nonnull String filter) {
@@ -64,7 +220,7 @@ public class LogUIManager {
             default -> FILTER_ALL;
         };
     }
-    private int resolveMinLevelValue(@Nonnull String filter) {
+    static int resolveMinLevelValue(@Nonnull String filter) {
         return switch (filter) {
             case LEVEL_SEVERE -> 1000;
             case LEVEL_WARNING -> 900;
@@ -78,59 +234,136 @@ public class LogUIManager {
         };
     }
 
+    // Called for every keystroke. The search itself waits until typing pauses and then runs on
+    // the scheduler; only the finished result is applied to the page, as one of its tasks.
     public void onTextFilterChanged(@Nonnull LogUIPage page, @Nonnull String textFilter) {
-        page.setTextFilter(textFilter);
-        page.updateFilterOptions(getLoggerFilterEntries(), getMinLevelEntries(), page.getLoggerFilter(), page.getMinLevelFilter(), textFilter);
-        page.updateRows(getRowSnapshot(page.getLoggerFilter(), page.getMinLevelFilter(), textFilter));
-    }
-
-    private String levelColor(@Nonnull LogRecord r) {
-        int v = r.getLevel().intValue();
-        if (v >= 1000) { // SEVERE
-            return "#ff5555";
-        } else if (v >= 900) { // WARNING
-            return "#ffb86c";
-        } else if (v >= 800) { // INFO
-            return "#e6e6e6";
-        } else if (v >= 700) { // CONFIG
-            return "#9aa5b1";
-        } else {
-            return "#8be9fd";
+        page.submit(() -> {
+            page.setTextFilter(textFilter);
+            long generation = page.supersedeSearch();
+            try {
+                // The shared scheduler only runs the debounce timer. Building a view can scan the
+                // whole buffer, so that gets its own thread, off the page lock so that further
+                // typing can still supersede it.
+                Runnable search = () -> runSearch(page, textFilter, generation);
+                page.setPendingSearch(HytaleServer.SCHEDULED_EXECUTOR.schedule(
+                        () -> Thread.ofVirtual().name("HytaleConsole-search").start(search), searchDebounceNanos, TimeUnit.NANOSECONDS));
+            } catch (RejectedExecutionException e) {
+                // The server is shutting down.
+            }
+        });
+    }
+
+    private void runSearch(@Nonnull LogUIPage page, @Nonnull String textFilter, long generation) {
+        BooleanSupplier superseded = () -> !page.isSearchCurrent(generation);
+        LogQuery query;
+        try {
+            query = LogQuery.parse(textFilter, loggerNames, System.currentTimeMillis());
+        } catch (LogQuery.ParseException e) {
+            // Keep showing the last valid result rather than silently matching nothing.
+            page.submit(() -> {
+                if (!superseded.getAsBoolean()) {
+                    page.showFilterError(e.getMessage());
+                }
+            });
+            return;
+        }
+        // Typing further only has to re-test what the current view matched.
+        FilteredView current = page.getView();
+        FilteredView wider = !current.filter.getQuery().isEmpty() && query.narrows(current.filter.getQuery()) ? current : null;
+        FilteredView view;
+        try {
+            view = acquireView(page, query, wider, superseded);
+        } catch (CancellationException e) {
+            return;
+        }
+        page.submit(() -> {
+            if (superseded.getAsBoolean()) {
+                views.release(view);
+                return;
+            }
+            page.showFilterError(null);
+            FilteredView previous = page.getView();
+            page.setView(view);
+            views.release(previous);
+            if (view != previous) {
+                page.rebuildRows(getRowWindow(page));
+            }
+        });
+    }
+
+    // The query typed into the page. A search still in flight is superseded and its text
+    // applied right away, so a dropdown change does not race it.
+    @Nonnull
+    private LogQuery typedQuery(@Nonnull LogUIPage page) {
+        page.supersedeSearch();
+        LogQuery applied = page.getRowFilter().getQuery();
+        if (page.getTextFilter().trim().equals(applied.source)) {
+            return applied;
+        }
+        try {
+            LogQuery query = LogQuery.parse(page.getTextFilter(), loggerNames, System.currentTimeMillis());
+            page.showFilterError(null);
+            return query;
+        } catch (LogQuery.ParseException e) {
+            page.showFilterError(e.getMessage());
+            return applied;
         }
     }
 
+    // Breaks every line longer than max; existing line breaks are kept.
     private String wrap(@Nonnull String s, int max) {
         if (s.length() <= max) return s;
         StringBuilder sb = new StringBuilder(s.length() + 8);
         int i = 0;
         while (i < s.length()) {
-            int end = Math.min(i + max, s.length());
+            int lineEnd = s.indexOf('\n', i);
+            if (lineEnd < 0) lineEnd = s.length();
+            int end = Math.min(i + max, lineEnd);
             sb.append(s, i, end);
             if (end < s.length()) sb.append('\n');
-            i = end;
+            i = end == lineEnd ? end + 1 : end;
         }
         return sb.toString();
     }
 
 
-    public void start(@Nonnull TaskRegistry taskRegistry) {
-        if (refreshTask != null) {
-            return;
+    public void start() {
+        logQueue.setWakeup(scheduler::signal);
+        // Drain whatever arrived before we subscribed to wake-ups.
+        scheduler.signal();
+        if (tail != null) {
+            tail.start();
         }
-        ScheduledFuture<Void> future = (ScheduledFuture<Void>)(ScheduledFuture<?>) HytaleServer.SCHEDULED_EXECUTOR
-                .scheduleWithFixedDelay(this::refresh, 250L, 250L, TimeUnit.MILLISECONDS);
-        this.refreshTask = future;
-        taskRegistry.registerTask(future);
     }
 
     public void shutdown() {
-        if (refreshTask != null) {
-            refreshTask.cancel(false);
-            refreshTask = null;
+        logQueue.setWakeup(null);
+        scheduler.stop();
+        for (LogUIPage page : pages) {
+            page.supersedeSearch();
+        }
+        LogExport running = export.get();
+        if (running != null) {
+            running.cancel();
+        }
+        if (tail != null) {
+            tail.close();
+        }
+        spoolHeldRow();
+        flushSpool();
+        if (backfill != null) {
+            try {
+                backfill.close();
+            } catch (IOException e) {
+                HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Could not close server log files");
+            }
         }
         pages.clear();
+        views.clear();
     }
 
+    // The first window is filtered and formatted on the scheduler; the world thread only
+    // registers the page and writes the prepared rows.
     public void openFor(@Nonnull PlayerRef playerRef) {
         Ref<EntityStore> ref = playerRef.getReference();
         if (ref == null) {
@@ -138,129 +371,803 @@ public class LogUIManager {
         }
         Store<EntityStore> store = ref.getStore();
         World world = store.getExternalData().getWorld();
-        world.execute(() -> {
-            if (!ref.isValid()) {
+        try {
+            HytaleServer.SCHEDULED_EXECUTOR.execute(() -> {
+                Snapshot snapshot = defaultSnapshot();
+                world.execute(() -> open(playerRef, ref, store, snapshot));
+            });
+        } catch (RejectedExecutionException e) {
+            // The server is shutting down.
+        }
+    }
+
+    private void open(@Nonnull PlayerRef playerRef, @Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, @Nonnull Snapshot snapshot) {
+        long start = System.nanoTime();
+        if (!ref.isValid()) {
+            return;
+        }
+        Player playerComponent = store.getComponent(ref, Player.getComponentType());
+        if (playerComponent == null) {
+            return;
+        }
+        LogUIPage page = new LogUIPage(playerRef, this, snapshot);
+        // Rows that arrived after the snapshot was taken go out with the first refresh.
+        page.setFlushedSeq(snapshot.headSeq);
+        page.setFlushedRevision(snapshot.revision);
+        page.setNextFlushNanos(System.nanoTime());
+        PageManager pageManager = playerComponent.getPageManager();
+        pageManager.openCustomPage(ref, store, page);
+        pages.addIfAbsent(page);
+        metrics.open.recordSince(start);
+    }
+
+    // What a newly opened page starts from: the default-filter view and its newest window.
+    static final class Snapshot {
+        final FilteredView view;
+        final List<LogRow> window;
+        final long headSeq;
+        final long revision;
+
+        Snapshot(@Nonnull FilteredView view, @Nonnull List<LogRow> window, long headSeq, long revision) {
+            this.view = view;
+            this.window = window;
+            this.headSeq = headSeq;
+            this.revision = revision;
+        }
+    }
+
+    // Reused by every open until new rows arrive. The manager keeps its own reference on the
+    // default view, so it stays cached and caught up even while no page has the console open.
+    @Nonnull
+    private synchronized Snapshot defaultSnapshot() {
+        long currentRevision = revision;
+        Snapshot current = snapshot;
+        if (current != null && current.revision == currentRevision) {
+            return current;
+        }
+        long start = System.nanoTime();
+        if (defaultView == null) {
+            defaultView = acquireView(FILTER_ALL, FILTER_ALL, LogQuery.EMPTY, null, () -> false);
+        }
+        long head = rows.nextSeq();
+        Snapshot next = new Snapshot(defaultView, List.copyOf(getRowWindow(defaultView, Long.MAX_VALUE, LogUIPage.DEFAULT_PAGE_SIZE)),
+                head, currentRevision);
+        snapshot = next;
+        metrics.snapshot.recordSince(start);
+        return next;
+    }
+
+    // Runs on the scheduler. Returns nanos until the next run is needed, or -1 to idle until
+    // the sink wakes us up.
+    private long refresh() {
+        long now = System.nanoTime();
+        // Always drain so the sink never fills up while nobody has the console open.
+        int drained = logQueue.drain(this::ingest, logQueue.capacity());
+        if (now - loggersExpiredNanos > LOGGER_EXPIRE_INTERVAL_NANOS) {
+            loggerNames.expire(System.currentTimeMillis() - LOGGER_LISTING_MILLIS);
+            loggersExpiredNanos = now;
+        }
+        if (drained > 0) {
+            flushSpool();
+            // Each distinct filter tests the new rows once; pages then just read their window.
+            long filterStart = System.nanoTime();
+            views.catchUp(rows);
+            metrics.filter.recordSince(filterStart);
+            if (tail != null) {
+                // Tail clients read the new rows on their own thread.
+                tail.signal();
+            }
+        }
+        long head = rows.nextSeq();
+        long wait = Long.MAX_VALUE;
+        for (LogUIPage page : pages) {
+            if (page.getFlushedRevision() >= revision) {
+                continue;
+            }
+            long due = page.getNextFlushNanos() - now;
+            if (due > 0) {
+                // Still paying for its last update; the skipped rows go out together later.
+                wait = Math.min(wait, due);
+                continue;
+            }
+            if (!page.tryLock()) {
+                // A handler is updating the page; try again shortly rather than hold up the others.
+                wait = Math.min(wait, coalesceNanos);
+                continue;
+            }
+            try {
+                flushPage(page, head);
+            } finally {
+                page.unlock();
+            }
+            page.setNextFlushNanos(System.nanoTime() + flushInterval(page));
+        }
+        metrics.sampleRate(now);
+        metrics.refresh.recordSince(now);
+        if (drained == logQueue.capacity() || logQueue.armWakeup()) {
+            return Math.min(wait, coalesceNanos);
+        }
+        return wait == Long.MAX_VALUE ? -1 : wait;
+    }
+
+    private void flushPage(@Nonnull LogUIPage page, long head) {
+        long behind = head - page.getFlushedSeq();
+        page.setFlushedSeq(head);
+        page.setFlushedRevision(revision);
+        page.updateLoggerEntries(getLoggerFilterEntries());
+        if (page.getAnchorSeq() != Long.MAX_VALUE && spool != null) {
+            // Anchored windows only change when their rows are evicted, and the spool still serves those.
+            return;
+        }
+        if (behind > (long) page.getPageSize() * RESYNC_PAGES) {
+            page.rebuildRows(getRowWindow(page));
+        } else {
+            page.updateRows(getRowWindow(page));
+        }
+    }
+
+    // Pages whose updates are expensive to send, or large for the client to receive and apply,
+    // are flushed less often. The last update stands in for the next one.
+    private long flushInterval(@Nonnull LogUIPage page) {
+        long sendNanos = page.getSendCostNanos() * SEND_BUDGET;
+        long bytesNanos = page.getLastBytes() * 1_000_000_000L / PAGE_BYTES_PER_SECOND;
+        long commandsNanos = page.getLastCommands() * 1_000_000_000L / PAGE_COMMANDS_PER_SECOND;
+        long interval = Math.max(sendNanos, Math.max(bytesNanos, commandsNanos));
+        return Math.max(coalesceNanos, Math.min(maxPageIntervalNanos, interval));
+    }
+
+    private void ingest(@Nonnull LogRecord r) {
+        String logger = r.getLoggerName() != null ? r.getLoggerName() : "Log";
+        String msg = r.getMessage() != null ? r.getMessage() : "";
+        String trace = r.getThrown() != null ? traces.intern(r.getThrown()) : null;
+        formatter.registerLevel(r.getLevel());
+        metrics.ingested.increment();
+        int loggerId = loggerNames.intern(logger);
+        loggerNames.seen(loggerId, r.getMillis());
+        int level = r.getLevel().intValue();
+        long newest = rows.nextSeq() - 1;
+        if (flood.isRepeat(loggerId, level, msg, trace) && rows.contains(newest)) {
+            rows.repeat(newest, r.getMillis());
+            metrics.collapsed.increment();
+            revision++;
+            return;
+        }
+        int suppressedBefore = flood.admit(loggerId, r.getMillis());
+        if (suppressedBefore < 0) {
+            metrics.suppressed.increment();
+            return;
+        }
+        spoolHeldRow();
+        long seq = appendRow(r.getMillis(), level, loggerId, msg, trace, suppressedBefore);
+        flood.appended(loggerId, level, msg, trace);
+        unspooledSeq = seq;
+        revision++;
+    }
+
+    // Writes the held-back newest row to the spool, with however many repeats it collected.
+    private void spoolHeldRow() {
+        long seq = unspooledSeq;
+        unspooledSeq = -1;
+        LogSpool target = spool;
+        if (target == null || seq < 0 || !rows.contains(seq)) {
+            return;
+        }
+        try {
+            target.append(seq, rows.millis(seq), rows.level(seq), loggerNames.name(rows.loggerId(seq)), rows.message(seq),
+                    rows.repeats(seq), rows.lastMillis(seq), rows.suppressedBefore(seq));
+        } catch (IOException e) {
+            disableSpool(e);
+        }
+    }
+
+    // Loggers with the most records dropped by flood control, busiest first.
+    @Nonnull
+    List<String> describeSuppressed(int limit) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 0; id < flood.trackedLoggers(); id++) {
+            if (flood.suppressedTotal(id) > 0) {
+                ids.add(id);
+            }
+        }
+        ids.sort((a, b) -> Long.compare(flood.suppressedTotal(b), flood.suppressedTotal(a)));
+        List<String> lines = new ArrayList<>();
+        for (int id : ids.subList(0, Math.min(limit, ids.size()))) {
+            lines.add(loggerNames.name(id) + ": " + flood.suppressedTotal(id) + " suppressed");
+        }
+        return lines;
+    }
+
+    private void flushSpool() {
+        LogSpool target = spool;
+        if (target != null) {
+            try {
+                target.flush();
+            } catch (IOException e) {
+                disableSpool(e);
+            }
+        }
+    }
+
+    private void disableSpool(@Nonnull IOException e) {
+        LogSpool target = spool;
+        spool = null;
+        HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Console log spool failed, history beyond memory is disabled");
+        if (target != null) {
+            try {
+                target.close();
+            } catch (IOException ignored) {
+                // Already failing; nothing more to do.
+            }
+        }
+    }
+
+    long getDroppedCount() {
+        return logQueue.getDroppedCount();
+    }
+
+    @Nonnull
+    public ConsoleMetrics getMetrics() {
+        return metrics;
+    }
+
+    int getBufferedRows() {
+        return rows.size();
+    }
+
+    int getBufferCapacity() {
+        return rows.capacity();
+    }
+
+    // Rows plus the text index, as the budget counts them.
+    long getBufferBytes() {
+        return rows.usedBytes();
+    }
+
+    // Heap the text index actually holds, as of its last trim.
+    long getIndexBytes() {
+        return textIndex.bytes();
+    }
+
+    long getBufferBudgetBytes() {
+        return rows.budgetBytes();
+    }
+
+    // Lines held per retention tier, highest first.
+    @Nonnull
+    List<String> describeRetention() {
+        List<String> lines = new ArrayList<>();
+        for (int t = rows.tiers() - 1; t >= 0; t--) {
+            lines.add(RETENTION_NAMES[t] + ": " + rows.tierSize(t) + " / " + rows.tierCapacity(t) + " rows");
+        }
+        return lines;
+    }
+
+    int getSharedViews() {
+        return views.size();
+    }
+
+    int getTailClients() {
+        return tail != null ? tail.clients() : 0;
+    }
+
+    // A shared view for a tail client's query, with both dropdown filters at "All".
+    @Nonnull
+    FilteredView acquireTailView(@Nonnull String queryText, @Nonnull BooleanSupplier cancelled) throws LogQuery.ParseException {
+        LogQuery query = LogQuery.parse(queryText, loggerNames, System.currentTimeMillis());
+        return acquireView(FILTER_ALL, FILTER_ALL, query, null, cancelled);
+    }
+
+    void releaseView(@Nonnull FilteredView view) {
+        views.release(view);
+    }
+
+    // Newest appended sequence.
+    long headSeq() {
+        return rows.nextSeq() - 1;
+    }
+
+    // Every line from this sequence on is still in memory; below it some tiers were evicted.
+    long completeSeq() {
+        return rows.completeSeq();
+    }
+
+    @Nonnull
+    List<LogUIPage> getPages() {
+        return pages;
+    }
+
+    @Nullable
+    LogUIPage pageFor(@Nonnull PlayerRef playerRef) {
+        for (LogUIPage page : pages) {
+            if (page.isViewedBy(playerRef)) {
+                return page;
+            }
+        }
+        return null;
+    }
+
+    // Starts writing the rows matching the player's console filters (everything, if they have no
+    // console open) to a gzipped file in directory on a virtual thread. Returns the file, or null
+    // if another export is still running.
+    @Nullable
+    Path startExport(@Nonnull PlayerRef playerRef, @Nonnull Path directory, @Nonnull Consumer<String> progress) {
+        LogUIPage page = pageFor(playerRef);
+        RowFilter filter = page != null ? page.getRowFilter() : new RowFilter(formatter, loggerNames, null, Integer.MIN_VALUE, LogQuery.EMPTY);
+        Path target = directory.resolve("console-" + EXPORT_FILE_FMT.format(Instant.now()) + ".log.gz");
+        LogExport job = new LogExport(this, formatter, filter, target, progress, done -> export.compareAndSet(done, null));
+        if (!export.compareAndSet(null, job)) {
+            return null;
+        }
+        Thread.ofVirtual().name("HytaleConsole-export").start(job);
+        return target;
+    }
+
+    private long appendRow(long millis, int levelValue, int loggerId, @Nonnull String message, @Nullable String trace,
+                           int suppressedBefore) {
+        String messageText = message.toLowerCase(Locale.ROOT);
+        String searchText = formatter.searchPrefix(millis, levelValue, loggerId) + messageText;
+        long seq = rows.append(millis, levelValue, loggerId, message, searchText, trace, suppressedBefore);
+        rows.chargeIndex(seq, textIndex.add(seq, rows.tierOf(levelValue), messageText));
+        textIndex.trim(rows);
+        rows.setIndexOverhead(textIndex.overheadBytes());
+        return seq;
+    }
+    public void onViewAction(@Nonnull LogUIPage page, @Nonnull String action) {
+        page.submit(() -> {
+            FilteredView view = page.getView();
+            switch (action) {
+                case VIEW_TAIL -> {
+                    page.setPinned(false);
+                    page.setAnchorSeq(Long.MAX_VALUE);
+                }
+                case VIEW_PIN -> {
+                    if (page.isPinned()) {
+                        page.setPinned(false);
+                        page.setAnchorSeq(Long.MAX_VALUE);
+                    } else {
+                        page.setPinned(true);
+                        long top = page.getTopSeq();
+                        page.setAnchorSeq(top != Long.MAX_VALUE ? top : rows.nextSeq() - 1);
+                    }
+                }
+                case VIEW_OLDER -> page.setAnchorSeq(moveOlder(view, page.getAnchorSeq(), page.getPageSize(), page.getPageSize()));
+                case VIEW_SCROLL_DOWN -> page.setAnchorSeq(moveOlder(view, page.getAnchorSeq(), SCROLL_STEP, page.getPageSize()));
+                case VIEW_NEWER -> page.setAnchorSeq(moveNewer(page, view, page.getPageSize()));
+                case VIEW_SCROLL_UP -> page.setAnchorSeq(moveNewer(page, view, SCROLL_STEP));
+                case VIEW_CLOSE_DETAIL -> {
+                    page.hideDetail();
+                    return;
+                }
+                default -> {
+                    return;
+                }
+            }
+            page.updateRows(getRowWindow(page));
+        });
+    }
+
+    public void onPageSizeChanged(@Nonnull LogUIPage page, @Nonnull String pageSize) {
+        page.submit(() -> {
+            page.setPageSize(LogUIPage.resolvePageSize(pageSize));
+            page.updateRows(getRowWindow(page));
+        });
+    }
+
+    // Shared view for the page's current dropdowns and the given query; built on first use.
+    @Nonnull
+    FilteredView acquireView(@Nonnull LogUIPage page, @Nonnull LogQuery query) {
+        return acquireView(page, query, null, () -> false);
+    }
+
+    // A page's reference on the snapshot's view. The manager holds its own on the default view,
+    // so it is normally still cached; if not, the page gets a fresh one.
+    @Nonnull
+    FilteredView retainView(@Nonnull LogUIPage page, @Nonnull Snapshot snapshot) {
+        return views.retain(snapshot.view) ? snapshot.view : acquireView(page, LogQuery.EMPTY);
+    }
+
+    @Nonnull
+    private FilteredView acquireView(@Nonnull LogUIPage page, @Nonnull LogQuery query, @Nullable FilteredView wider, @Nonnull BooleanSupplier cancelled) {
+        return acquireView(page.getLoggerFilter(), page.getMinLevelFilter(), query, wider, cancelled);
+    }
+
+    // A wider view with the same dropdowns whose query this one narrows seeds the build.
+    @Nonnull
+    private FilteredView acquireView(@Nonnull String loggerFilter, @Nonnull String minLevelFilter, @Nonnull LogQuery query,
+                                     @Nullable FilteredView wider, @Nonnull BooleanSupplier cancelled) {
+        int minLevelValue = resolveMinLevelValue(minLevelFilter);
+        RowFilter filter = new RowFilter(formatter, loggerNames, FILTER_ALL.equals(loggerFilter) ? null : loggerFilter, minLevelValue, query);
+        long start = System.nanoTime();
+        FilteredView view = views.acquire(ViewCache.key(loggerFilter, minLevelValue, query), () -> filter, rows, textIndex,
+                wider != null && wider.filter.sameColumns(filter) ? wider : null, cancelled);
+        metrics.filter.recordSince(start);
+        return view;
+    }
+
+    private void applyFilter(@Nonnull LogUIPage page, @Nonnull LogQuery query) {
+        FilteredView previous = page.getView();
+        page.setView(acquireView(page, query));
+        views.release(previous);
+    }
+
+    public void onJump(@Nonnull LogUIPage page, @Nonnull String ago) {
+        page.submit(() -> {
+            long agoMillis = LogQuery.parseAgo(ago);
+            if (agoMillis < 0) {
+                return;
+            }
+            long seq = seqAtOrBefore(System.currentTimeMillis() - agoMillis);
+            page.setPinned(false);
+            page.setAnchorSeq(seq >= 0 ? seq : oldestSeq() - 1);
+            page.updateRows(getRowWindow(page));
+        });
+    }
+
+    // Shows one row's whole message and stack trace, which the row list only previews.
+    public void onExpand(@Nonnull LogUIPage page, @Nonnull String seqText) {
+        page.submit(() -> {
+            long seq;
+            try {
+                seq = Long.parseLong(seqText.trim());
+            } catch (NumberFormatException e) {
+                return;
+            }
+            LogBuffer buffer = rowSource(seq);
+            if (buffer == null) {
+                page.showDetail("Line no longer available", "It has dropped out of the console's history.");
                 return;
             }
-            Player playerComponent = store.getComponent(ref, Player.getComponentType());
-            if (playerComponent == null) {
+            String title = formatter.prefix(buffer.millis(seq), buffer.level(seq)) + " " + formatter.loggerName(buffer.loggerId(seq));
+            String message = buffer.message(seq);
+            String trace = buffer.trace(seq);
+            if (!buffer.validate(seq)) {
+                page.showDetail("Line no longer available", "It was evicted while it was being read.");
                 return;
             }
-            LogUIPage page = new LogUIPage(playerRef, this);
-            PageManager pageManager = playerComponent.getPageManager();
-            pageManager.openCustomPage(ref, store, page);
-            pages.addIfAbsent(page);
+            String text = trace != null ? message + "\n\n" + trace : message;
+            if (text.length() > DETAIL_MAX_CHARS) {
+                text = text.substring(0, DETAIL_MAX_CHARS) + "\n... (" + (text.length() - DETAIL_MAX_CHARS)
+                        + " more characters; use /console export for the rest)";
+            }
+            page.showDetail(title, wrap(text, DETAIL_WRAP));
         });
     }
 
-    private void refresh() {
-        if (pages.isEmpty()) {
-            return;
+    // The buffer holding seq: memory, or a one-line read from the spool or the log files.
+    @Nullable
+    private LogBuffer rowSource(long seq) {
+        if (rows.contains(seq)) {
+            return rows;
+        }
+        LogHistory source = null;
+        LogSpool history = spool;
+        LogBackfill files = backfill;
+        if (history != null && !history.isEmpty() && seq >= history.firstSeq() && seq < history.nextSeq()) {
+            source = history;
+        } else if (files != null && seq >= files.firstSeq() && seq < files.nextSeq()) {
+            source = files;
         }
+        if (source == null) {
+            return null;
+        }
+        LogBuffer one = new LogBuffer(2);
+        return source.read(seq, 1, loggerNames, one) > 0 && one.contains(seq) ? one : null;
+    }
+
+    // Newest sequence logged at or before the given time; Long.MAX_VALUE if that is the tail,
+    // -1 if it is older than anything we still have.
+    private long seqAtOrBefore(long millis) {
+        long seq = rows.seqAtOrBefore(millis);
+        if (seq >= 0 && seq == rows.nextSeq() - 1) {
+            return Long.MAX_VALUE;
+        }
+        LogSpool history = spool;
+        if (history != null && seq < memoryFloor(history)) {
+            seq = Math.max(seq, history.seqAtOrBefore(millis));
+        }
+        // Log file lines are all older than the rest, so they only matter if nothing else is.
+        LogBackfill files = backfill;
+        return seq < 0 && files != null ? files.seqAtOrBefore(millis) : seq;
+    }
+
+    // Lowest sequence from which memory is served. Below completeSeq only the longer-kept tiers
+    // remain, so when there is a spool those rows come from disk instead.
+    private long memoryFloor(@Nullable LogSpool history) {
+        long first = rows.firstSeq();
+        return history != null && !history.isEmpty() ? Math.max(first, rows.completeSeq()) : first;
+    }
 
-        List<LogRecord> batch = drainLogs();
-        if (!batch.isEmpty()) {
-            for (LogRecord r : batch) {
-                appendRow(formatRow(r));
+    private long oldestSeq() {
+        LogSpool history = spool;
+        long oldest = history != null && !history.isEmpty() ? Math.min(history.firstSeq(), rows.firstSeq()) : rows.firstSeq();
+        LogBackfill files = backfill;
+        return files != null ? Math.min(files.firstSeq(), oldest) : oldest;
+    }
+
+    // Returns the page's viewport: up to pageSize matching rows at or below its anchor, newest first.
+    List<LogRow> getRowWindow(@Nonnull LogUIPage page) {
+        long start = System.nanoTime();
+        FilteredView view = page.getView();
+        long anchor = page.getAnchorSeq();
+        if (anchor != Long.MAX_VALUE && anchor < oldestSeq()) {
+            // The anchored rows are gone; stay on the oldest page we still have.
+            anchor = findNewer(view, oldestSeq() - 1, page.getPageSize());
+            page.setAnchorSeq(anchor);
+        }
+        List<LogRow> window = getRowWindow(view, anchor, page.getPageSize());
+        metrics.window.recordSince(start);
+        return window;
+    }
+
+    // Display strings are only built for the rows that end up in the window.
+    List<LogRow> getRowWindow(@Nonnull FilteredView view, long anchorSeq, int size) {
+        List<LogRow> list = new ArrayList<>(Math.min(size, rows.size()));
+        scanOlder(view, anchorSeq, (buffer, seq) -> {
+            LogRow row = formatter.format(buffer, seq);
+            // Rows evicted while we formatted them may have been half overwritten.
+            if (buffer.validate(seq)) {
+                list.add(row);
             }
-            for (LogUIPage page : pages) {
-                page.updateFilterOptions(getLoggerFilterEntries(), getMinLevelEntries(), page.getLoggerFilter(), page.getMinLevelFilter(), page.getTextFilter());
-                page.updateRows(getRowSnapshot(page.getLoggerFilter(), page.getMinLevelFilter(), page.getTextFilter()));
+            return list.size() < size;
+        });
+        return list;
+    }
+
+    // Moves the anchor down by steps matching rows, clamped so the last page is still full.
+    private long moveOlder(@Nonnull FilteredView view, long anchorSeq, int steps, int pageSize) {
+        long[] tail = new long[Math.max(1, pageSize)];
+        int[] seen = {0};
+        long[] found = {-1L};
+        scanOlder(view, anchorSeq, (buffer, seq) -> {
+            if (seen[0] == steps) {
+                found[0] = seq;
+                return false;
             }
+            tail[seen[0] % tail.length] = seq;
+            seen[0]++;
+            return true;
+        });
+        if (found[0] >= 0) {
+            return found[0];
+        }
+        if (seen[0] == 0) {
+            return anchorSeq;
         }
+        return seen[0] <= tail.length ? tail[0] : tail[seen[0] % tail.length];
     }
 
-    private List<LogRecord> drainLogs() {
-        if (logQueue.isEmpty()) {
-            return List.of();
+    // Moves the anchor up by steps matching rows; reaching the newest row resumes following
+    // the tail unless the page is pinned.
+    private long moveNewer(@Nonnull LogUIPage page, @Nonnull FilteredView view, int steps) {
+        long anchorSeq = page.getAnchorSeq();
+        if (anchorSeq == Long.MAX_VALUE) {
+            return anchorSeq;
         }
-        List<LogRecord> batch = new ArrayList<>(logQueue);
-        logQueue.clear();
-        return batch;
+        long next = findNewer(view, anchorSeq, steps);
+        if (next == Long.MAX_VALUE && page.isPinned()) {
+            return rows.nextSeq() - 1;
+        }
+        return next;
+    }
+
+    // Sequence of the steps-th matching row after afterSeq, or Long.MAX_VALUE if there are fewer.
+    private long findNewer(@Nonnull FilteredView view, long afterSeq, int steps) {
+        int[] seen = {0};
+        long[] found = {Long.MAX_VALUE};
+        scanNewer(view, afterSeq, (buffer, seq) -> {
+            if (++seen[0] == steps) {
+                found[0] = seq;
+                return false;
+            }
+            return true;
+        });
+        return found[0];
+    }
+
+    @FunctionalInterface
+    interface RowVisitor {
+        // Returns false to stop the scan.
+        boolean visit(@Nonnull LogBuffer buffer, long seq);
     }
 
-    private void appendRow(@Nonnull LogRow row) {
-        rows.addLast(row);
-        loggerNames.add(row.loggerName);
-        while (rows.size() > MAX_LINES) {
-            rows.removeFirst();
+    // Visits matching rows newest first from fromSeq down, continuing into the spool and then
+    // the server's log files once the in-memory buffer runs out.
+    void scanOlder(@Nonnull FilteredView view, long fromSeq, @Nonnull RowVisitor visitor) {
+        LogSpool history = spool;
+        long floor = memoryFloor(history);
+        // The view already holds the matching in-memory rows; only history needs filtering.
+        if (!view.scanDescending(fromSeq, floor, seq -> !rows.contains(seq) || visitor.visit(rows, seq))) {
+            return;
+        }
+        long before = Math.min(fromSeq == Long.MAX_VALUE ? floor : fromSeq + 1, floor);
+        int[] budget = {SPOOL_SCAN_LIMIT};
+        if (history != null && !history.isEmpty()) {
+            long spoolFirst = history.firstSeq();
+            if (!scanHistoryOlder(history, view.filter, before, visitor, budget)) {
+                return;
+            }
+            before = Math.min(before, spoolFirst);
+            // Past the spool's own retention, whatever the longer-kept tiers still hold.
+            if (!view.scanDescending(before - 1, rows.firstSeq(), seq -> !rows.contains(seq) || visitor.visit(rows, seq))) {
+                return;
+            }
+        }
+        LogBackfill files = backfill;
+        if (files != null) {
+            scanHistoryOlder(files, view.filter, Math.min(before, files.nextSeq()), visitor, budget);
         }
     }
-    List<LogRow> getRowSnapshot(@Nonnull String loggerFilter, @Nonnull String minLevelFilter, @Nonnull String textFilter) {
-        Object[] arr = rows.toArray();
-        List<LogRow> list = new ArrayList<>(arr.length);
-        String text = textFilter.trim().toLowerCase();
-        int minLevelValue = resolveMinLevelValue(minLevelFilter);
-        for (int i = arr.length - 1; i >= 0; i--) {
-            LogRow row = (LogRow) arr[i];
-            if (!FILTER_ALL.equals(loggerFilter) && !row.loggerName.equals(loggerFilter)) {
-                continue;
+
+    // Visits matching history rows newest first below before. Returns true once the history
+    // has no older rows, false if the visitor stopped, the budget ran out or reading failed.
+    private boolean scanHistoryOlder(@Nonnull LogHistory history, @Nonnull RowFilter filter, long before,
+                                     @Nonnull RowVisitor visitor, @Nonnull int[] budget) {
+        LogBuffer chunk = new LogBuffer(SPOOL_CHUNK);
+        long first = history.firstSeq();
+        while (before > first) {
+            if (budget[0] <= 0) {
+                return false;
             }
-            if (minLevelValue != Integer.MIN_VALUE && row.levelValue < minLevelValue) {
-                continue;
+            long from = Math.max(first, before - SPOOL_CHUNK);
+            int read = history.read(from, (int) (before - from), loggerNames, chunk);
+            if (read == 0 || chunk.firstSeq() >= before) {
+                return false;
             }
-            if (!text.isEmpty()) {
-                String haystack = (row.loggerName + " " + row.prefix + " " + row.suffix).toLowerCase();
-                if (!haystack.contains(text)) {
-                    continue;
+            for (long seq = Math.min(before, chunk.nextSeq()) - 1; seq >= chunk.firstSeq(); seq--) {
+                if (filter.matches(chunk, seq) && !visitor.visit(chunk, seq)) {
+                    return false;
                 }
             }
-            list.add(row);
+            budget[0] -= read;
+            before = chunk.firstSeq();
+            // The log files only learn where they start as they are read.
+            first = history.firstSeq();
         }
-        return list;
+        return true;
     }
-    private List<DropdownEntryInfo> getLoggerFilterEntries() {
-        List<DropdownEntryInfo> entries = new ArrayList<>(loggerNames.size() + 1);
-        entries.add(new DropdownEntryInfo(LocalizableString.fromString(FILTER_ALL), FILTER_ALL));
-        for (String name : loggerNames) {
-            entries.add(new DropdownEntryInfo(LocalizableString.fromString(name), name));
+
+    // Visits matching rows oldest first after afterSeq, starting in the log files or the spool
+    // if afterSeq is older than the in-memory buffer.
+    void scanNewer(@Nonnull FilteredView view, long afterSeq, @Nonnull RowVisitor visitor) {
+        LogSpool history = spool;
+        long floor = memoryFloor(history);
+        long from = afterSeq + 1;
+        int[] budget = {SPOOL_SCAN_LIMIT};
+        LogBackfill files = backfill;
+        if (files != null && from < files.nextSeq()) {
+            if (!scanHistoryNewer(files, view.filter, from, files.nextSeq(), visitor, budget)) {
+                return;
+            }
+            from = files.nextSeq();
         }
-        return entries;
+        if (history != null && !history.isEmpty() && from < floor) {
+            long spoolFirst = Math.min(history.firstSeq(), floor);
+            if (from < spoolFirst && !view.scanAscending(from, spoolFirst - 1, seq -> !rows.contains(seq) || visitor.visit(rows, seq))) {
+                return;
+            }
+            from = Math.max(from, spoolFirst);
+            if (!scanHistoryNewer(history, view.filter, from, floor, visitor, budget)) {
+                return;
+            }
+        }
+        view.scanAscending(Math.max(from, floor), Long.MAX_VALUE, seq -> !rows.contains(seq) || visitor.visit(rows, seq));
     }
 
-    List<DropdownEntryInfo> getLoggerFilterEntriesSnapshot() {
-        return getLoggerFilterEntries();
+    // Visits matching history rows oldest first in [from, to). Returns false only if the visitor stopped.
+    private boolean scanHistoryNewer(@Nonnull LogHistory history, @Nonnull RowFilter filter, long from, long to,
+                                     @Nonnull RowVisitor visitor, @Nonnull int[] budget) {
+        LogBuffer chunk = new LogBuffer(SPOOL_CHUNK);
+        while (from < to && budget[0] > 0) {
+            int read = history.read(from, (int) Math.min(SPOOL_CHUNK, to - from), loggerNames, chunk);
+            if (read == 0) {
+                break;
+            }
+            for (long seq = chunk.firstSeq(); seq < chunk.nextSeq() && seq < to; seq++) {
+                if (filter.matches(chunk, seq) && !visitor.visit(chunk, seq)) {
+                    return false;
+                }
+            }
+            budget[0] -= read;
+            from = chunk.nextSeq();
+        }
+        return true;
     }
 
-    private List<DropdownEntryInfo> getMinLevelEntries() {
-        List<DropdownEntryInfo> entries = new ArrayList<>(5);
+    // Visits every matching row oldest first: log files, spool, then memory, with no scan budget.
+    // For exports, which run on their own thread; memory rows may be overwritten while the
+    // visitor looks at them, so it has to validate what it read.
+    void forEachMatching(@Nonnull RowFilter filter, @Nonnull BooleanSupplier cancelled, @Nonnull RowVisitor visitor) {
+        int[] budget = {Integer.MAX_VALUE};
+        LogBackfill files = backfill;
+        if (files != null) {
+            // Find where the log files start first; each step holds the files only briefly.
+            while (files.walkOlder()) {
+                if (cancelled.getAsBoolean()) {
+                    return;
+                }
+            }
+            if (!scanHistoryNewer(files, filter, files.firstSeq(), files.nextSeq(), visitor, budget)) {
+                return;
+            }
+        }
+        LogSpool history = spool;
+        long floor = memoryFloor(history);
+        long spoolFirst = history != null && !history.isEmpty() ? Math.min(history.firstSeq(), floor) : floor;
+        // What the longer-kept tiers hold from before the spool starts, the spool, then memory.
+        if (!scanMemory(filter, rows.firstSeq(), spoolFirst, visitor)) {
+            return;
+        }
+        if (spoolFirst < floor && !scanHistoryNewer(history, filter, spoolFirst, floor, visitor, budget)) {
+            return;
+        }
+        scanMemory(filter, floor, Long.MAX_VALUE, visitor);
+    }
 
+    private boolean scanMemory(@Nonnull RowFilter filter, long from, long to, @Nonnull RowVisitor visitor) {
+        boolean[] stopped = {false};
+        rows.scanAscending(from, seq -> {
+            if (seq >= to) {
+                return false;
+            }
+            if (filter.matches(rows, seq) && !visitor.visit(rows, seq)) {
+                stopped[0] = true;
+                return false;
+            }
+            return true;
+        });
+        return !stopped[0];
+    }
+
+    // Rebuilt only when the registry's listed names change; pages compare versions to skip resends.
+    @Nonnull
+    LoggerEntries getLoggerFilterEntries() {
+        LoggerEntries current = loggerEntries;
+        int version = loggerNames.listVersion();
+        if (current.version == version) {
+            return current;
+        }
+        List<String> names = loggerNames.listedNames();
+        List<DropdownEntryInfo> entries = new ArrayList<>(names.size() + 1);
         entries.add(new DropdownEntryInfo(LocalizableString.fromString(FILTER_ALL), FILTER_ALL));
-        entries.add(new DropdownEntryInfo(LocalizableString.fromString(LEVEL_SEVERE), LEVEL_SEVERE));
-        entries.add(new DropdownEntryInfo(LocalizableString.fromString(LEVEL_WARNING), LEVEL_WARNING));
-        entries.add(new DropdownEntryInfo(LocalizableString.fromString(LEVEL_INFO), LEVEL_INFO));
-        entries.add(new DropdownEntryInfo(LocalizableString.fromString(LEVEL_CONFIG), LEVEL_CONFIG));
-        entries.add(new DropdownEntryInfo(LocalizableString.fromString(LEVEL_FINE), LEVEL_FINE));
-        entries.add(new DropdownEntryInfo(LocalizableString.fromString(LEVEL_FINER), LEVEL_FINER));
-        entries.add(new DropdownEntryInfo(LocalizableString.fromString(LEVEL_FINEST), LEVEL_FINEST));
-        entries.add(new DropdownEntryInfo(LocalizableString.fromString(LEVEL_OFF), LEVEL_OFF));
-        return entries;
+        for (String name : names) {
+            entries.add(new DropdownEntryInfo(LocalizableString.fromString(name), name));
+        }
+        LoggerEntries next = new LoggerEntries(version, List.copyOf(entries));
+        loggerEntries = next;
+        return next;
     }
 
-    List<DropdownEntryInfo> getMinLevelEntriesSnapshot() {
-        return getMinLevelEntries();
+    @Nonnull
+    List<DropdownEntryInfo> getMinLevelEntries() {
+        return MIN_LEVEL_ENTRIES;
     }
 
-    public void onFilterChanged(@Nonnull LogUIPage page, @Nonnull String filter) {
-        String nextFilter = loggerNames.contains(filter) ? filter : FILTER_ALL;
-        page.setLoggerFilter(nextFilter);
-        page.updateFilterOptions(getLoggerFilterEntries(), getMinLevelEntries(), nextFilter, page.getMinLevelFilter(), page.getTextFilter());
-        page.updateRows(getRowSnapshot(nextFilter, page.getMinLevelFilter(), page.getTextFilter()));
+    // An immutable logger dropdown list and the registry version it was built from.
+    static final class LoggerEntries {
+        final int version;
+        final List<DropdownEntryInfo> entries;
+
+        LoggerEntries(int version, @Nonnull List<DropdownEntryInfo> entries) {
+            this.version = version;
+            this.entries = entries;
+        }
     }
 
-    private LogRow formatRow(@Nonnull LogRecord r) {
-        String time = TIME_FMT.format(Instant.ofEpochMilli(r.getMillis()));
-        String logger = r.getLoggerName() != null ? r.getLoggerName() : "Log";
-        String msg = r.getMessage() != null ? r.getMessage() : "";
-        String level = r.getLevel().getName();
-        int levelValue = r.getLevel().intValue();
-        String prefix = "[" + time + "][" + level + "]";
-        String loggerPart = "[" + logger + "]";
-        String suffix = " " + msg;
-        return new LogRow(prefix, loggerPart, logger, levelValue, suffix, levelColor(r));
+    public void onFilterChanged(@Nonnull LogUIPage page, @Nonnull String filter) {
+        page.submit(() -> {
+            String nextFilter = loggerNames.contains(filter) ? filter : FILTER_ALL;
+            page.setLoggerFilter(nextFilter);
+            page.updateFilterOptions(getLoggerFilterEntries(), nextFilter, page.getMinLevelFilter(), page.getTextFilter());
+            applyFilter(page, typedQuery(page));
+            page.rebuildRows(getRowWindow(page));
+        });
     }
 
     public void pageDismissed(LogUIPage logUIPage) {
         pages.remove(logUIPage);
+        logUIPage.submit(() -> {
+            logUIPage.supersedeSearch();
+            views.release(logUIPage.getView());
+        });
     }
 }
@@ -8,6 +8,7 @@ import com.hypixel.hytale.protocol.packets.interface_.CustomPageLifetime;
 import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
 import com.hypixel.hytale.server.core.entity.entities.player.pages.InteractiveCustomUIPage;
 import com.hypixel.hytale.server.core.ui.DropdownEntryInfo;
+import com.hypixel.hytale.server.core.ui.LocalizableString;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
@@ -16,7 +17,14 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class LogUIPage extends InteractiveCustomUIPage<LogUIPage.LogUIEventData> {
     private static final String LAYOUT = "Pages/HytaleConsole_Logs.ui";
@@ -25,7 +33,32 @@ public class LogUIPage extends InteractiveCustomUIPage<LogUIPage.LogUIEventData>
     private static final String SEL_MIN_LEVEL_FILTER_INPUT = "#MinLevelFilter";
     private static final String SEL_LOGGER_FILTER_INPUT = "#LoggerFilter";
     private static final String SEL_TEXT_FILTER_INPUT = "#LogTextFilter";
+    private static final String SEL_PAGE_SIZE_INPUT = "#PageSizeFilter";
+    private static final String SEL_VIEW_STATUS = "#ViewStatus";
+    private static final String SEL_TAIL_BUTTON = "#TailButton";
+    private static final String SEL_PIN_BUTTON = "#PinButton";
+    private static final String SEL_NEWER_BUTTON = "#NewerButton";
+    private static final String SEL_OLDER_BUTTON = "#OlderButton";
+    private static final String SEL_SCROLL_UP_BUTTON = "#ScrollUpButton";
+    private static final String SEL_SCROLL_DOWN_BUTTON = "#ScrollDownButton";
+    private static final String SEL_JUMP_INPUT = "#JumpInput";
+    private static final String SEL_JUMP_BUTTON = "#JumpButton";
+    private static final String SEL_FILTER_ERROR = "#FilterError";
+    private static final String SEL_DETAIL_BOX = "#DetailBox";
+    private static final String SEL_DETAIL_TITLE = "#DetailTitle";
+    private static final String SEL_DETAIL_TEXT = "#DetailText";
+    private static final String SEL_DETAIL_CLOSE_BUTTON = "#DetailCloseButton";
+    private static final int[] PAGE_SIZES = {25, 50, 100, 200};
+    static final int DEFAULT_PAGE_SIZE = 50;
     private final LogUIManager manager;
+    // Guards everything below that describes what the client shows: the filters, anchor, pin,
+    // page size, the row writer's copy of the client's list and the pending counter. The page's
+    // tasks and the refresh both hold it from reading that state until the update built from it
+    // has been sent, so no diff is ever based on a list another thread changed.
+    private final ReentrantLock lock = new ReentrantLock();
+    // Handler work waiting to run, in the order the client sent it; see submit.
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
     private final long createdAtMs = System.currentTimeMillis();
     @Nonnull
     private String loggerFilter = LogUIManager.FILTER_ALL;
@@ -33,10 +66,51 @@ public class LogUIPage extends InteractiveCustomUIPage<LogUIPage.LogUIEventData>
     private String minLevelFilter = LogUIManager.FILTER_ALL;
     @Nonnull
     private String textFilter = "";
+    // Version of the logger entries the client has; set from both the world and refresh threads.
+    private volatile int loggerEntriesVersion = -1;
+    // Prepared off the world thread for the first build; later builds read the window again.
+    @Nullable
+    private List<LogRow> initialWindow;
+    // Commands written since the last send, for metrics.
+    private final UpdateCounter pending = new UpdateCounter();
+    private final RowListWriter rowWriter = new RowListWriter(SEL_LOG_BOX, ROW_UI, pending);
+    // Newest sequence the viewport may show; Long.MAX_VALUE follows the tail.
+    private long anchorSeq = Long.MAX_VALUE;
+    private boolean pinned;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private String viewStatus = "";
+    // Read by the scheduler when a search starts.
+    @Nonnull
+    private volatile FilteredView view;
+    @Nonnull
+    private String filterError = "";
+    // Text searches run on the scheduler; starting a new one bumps the generation, which
+    // cancels the previous one wherever it is.
+    private final AtomicLong searchGeneration = new AtomicLong();
+    @Nullable
+    private ScheduledFuture<?> pendingSearch;
+    // Flush pacing, maintained by the manager's refresh.
+    private long flushedSeq;
+    private long flushedRevision;
+    private long nextFlushNanos;
+    // Moving average of what one sendUpdate to this client costs us.
+    private volatile long sendCostNanos;
+    // Per-page send totals for /console stats. Written under the page lock, read without it, so
+    // the stats command never waits on a page task.
+    private final String viewerName;
+    private volatile long updatesSent;
+    private volatile long commandsSent;
+    private volatile long bytesSent;
+    private volatile int lastCommands;
+    private volatile long lastBytes;
 
-    public LogUIPage(@Nonnull PlayerRef playerRef, @Nonnull LogUIManager manager) {
+    // The page starts on the snapshot's view and takes its own reference on it.
+    public LogUIPage(@Nonnull PlayerRef playerRef, @Nonnull LogUIManager manager, @Nonnull LogUIManager.Snapshot snapshot) {
         super(playerRef, CustomPageLifetime.CanDismissOrCloseThroughInteraction, LogUIEventData.CODEC);
         this.manager = manager;
+        this.viewerName = playerRef.getUsername() != null ? playerRef.getUsername() : "?";
+        this.view = manager.retainView(this, snapshot);
+        this.initialWindow = snapshot.window;
     }
 
     @Override
@@ -51,30 +125,37 @@ public class LogUIPage extends InteractiveCustomUIPage<LogUIPage.LogUIEventData>
             @Nonnull UIEventBuilder eventBuilder,
             @Nonnull Store<EntityStore> store
     ) {
+        lock.lock();
+        try {
+            build(commandBuilder, eventBuilder);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void build(@Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder) {
         // Build the initial UI in a single command sequence so we don't send updates
         // that reference elements before the layout has been appended on the client.
         commandBuilder.append(LAYOUT);
 
         // Initialize dropdown options/values.
-        commandBuilder.set(SEL_LOGGER_FILTER_INPUT + ".Entries", manager.getLoggerFilterEntriesSnapshot());
-        commandBuilder.set(SEL_MIN_LEVEL_FILTER_INPUT + ".Entries", manager.getMinLevelEntriesSnapshot());
+        LogUIManager.LoggerEntries loggers = manager.getLoggerFilterEntries();
+        commandBuilder.set(SEL_LOGGER_FILTER_INPUT + ".Entries", loggers.entries);
+        commandBuilder.set(SEL_MIN_LEVEL_FILTER_INPUT + ".Entries", manager.getMinLevelEntries());
+        loggerEntriesVersion = loggers.version;
         commandBuilder.set(SEL_LOGGER_FILTER_INPUT + ".Value", loggerFilter);
         commandBuilder.set(SEL_MIN_LEVEL_FILTER_INPUT + ".Value", minLevelFilter);
         commandBuilder.set(SEL_TEXT_FILTER_INPUT + ".Value", textFilter);
+        commandBuilder.set(SEL_FILTER_ERROR + ".Text", filterError);
+        commandBuilder.set(SEL_PAGE_SIZE_INPUT + ".Entries", getPageSizeEntries());
+        commandBuilder.set(SEL_PAGE_SIZE_INPUT + ".Value", String.valueOf(pageSize));
 
-        // Initialize the log rows.
-        commandBuilder.clear(SEL_LOG_BOX);
-        java.util.List<LogRow> rows = manager.getRowSnapshot(loggerFilter, minLevelFilter, textFilter);
-        for (int i = 0; i < rows.size(); i++) {
-            LogRow row = rows.get(i);
-            commandBuilder.append(SEL_LOG_BOX, ROW_UI);
-            String selector = SEL_LOG_BOX + "[" + i + "] ";
-            commandBuilder.set(selector + "#RowPrefix.Text", row.prefix);
-            commandBuilder.set(selector + "#RowLogger.Text", row.logger);
-            commandBuilder.set(selector + "#RowSuffix.Text", row.suffix);
-            commandBuilder.set(selector + "#RowPrefix.Style.TextColor", row.colorHex);
-            commandBuilder.set(selector + "#RowSuffix.Style.TextColor", row.colorHex);
-        }
+        // Initialize the log rows; only the viewport is ever sent to the client.
+        List<LogRow> window = initialWindow;
+        initialWindow = null;
+        writeAllRows(commandBuilder, eventBuilder, window != null ? window : manager.getRowWindow(this));
+        // The initial build goes out with the page itself, not through sendUpdate.
+        pending.reset();
 
         // Event bindings.
         eventBuilder.addEventBinding(
@@ -95,41 +176,357 @@ public class LogUIPage extends InteractiveCustomUIPage<LogUIPage.LogUIEventData>
                 EventData.of(LogUIEventData.KEY_TEXT_FILTER, SEL_TEXT_FILTER_INPUT + ".Value"),
                 false
         );
+        eventBuilder.addEventBinding(
+                CustomUIEventBindingType.ValueChanged,
+                SEL_PAGE_SIZE_INPUT,
+                EventData.of(LogUIEventData.KEY_PAGE_SIZE, SEL_PAGE_SIZE_INPUT + ".Value"),
+                false
+        );
+        eventBuilder.addEventBinding(
+                CustomUIEventBindingType.Activating,
+                SEL_JUMP_BUTTON,
+                EventData.of(LogUIEventData.KEY_JUMP, SEL_JUMP_INPUT + ".Value"),
+                false
+        );
+        bindViewAction(eventBuilder, SEL_TAIL_BUTTON, LogUIManager.VIEW_TAIL);
+        bindViewAction(eventBuilder, SEL_PIN_BUTTON, LogUIManager.VIEW_PIN);
+        bindViewAction(eventBuilder, SEL_NEWER_BUTTON, LogUIManager.VIEW_NEWER);
+        bindViewAction(eventBuilder, SEL_OLDER_BUTTON, LogUIManager.VIEW_OLDER);
+        bindViewAction(eventBuilder, SEL_SCROLL_UP_BUTTON, LogUIManager.VIEW_SCROLL_UP);
+        bindViewAction(eventBuilder, SEL_SCROLL_DOWN_BUTTON, LogUIManager.VIEW_SCROLL_DOWN);
+        bindViewAction(eventBuilder, SEL_DETAIL_CLOSE_BUTTON, LogUIManager.VIEW_CLOSE_DETAIL);
+    }
+
+    private static void bindViewAction(@Nonnull UIEventBuilder eventBuilder, @Nonnull String selector, @Nonnull String action) {
+        eventBuilder.addEventBinding(
+                CustomUIEventBindingType.Activating,
+                selector,
+                EventData.of(LogUIEventData.KEY_VIEW_ACTION, action),
+                false
+        );
+    }
+
+    private static List<DropdownEntryInfo> getPageSizeEntries() {
+        List<DropdownEntryInfo> entries = new ArrayList<>(PAGE_SIZES.length);
+        for (int size : PAGE_SIZES) {
+            String value = String.valueOf(size);
+            entries.add(new DropdownEntryInfo(LocalizableString.fromString(value), value));
+        }
+        return entries;
+    }
+
+    static int resolvePageSize(@Nonnull String value) {
+        for (int size : PAGE_SIZES) {
+            if (String.valueOf(size).equals(value)) {
+                return size;
+            }
+        }
+        return DEFAULT_PAGE_SIZE;
     }
 
-    public void updateRows(@Nonnull java.util.List<LogRow> rows) {
+    // Sends only the rows the client is missing and removes the ones that dropped out of the snapshot.
+    public void updateRows(@Nonnull List<LogRow> rows) {
         UICommandBuilder b = new UICommandBuilder();
-        b.clear(SEL_LOG_BOX);
-        for (int i = 0; i < rows.size(); i++) {
-            LogRow row = rows.get(i);
-            b.append(SEL_LOG_BOX, ROW_UI);
-            String selector = SEL_LOG_BOX + "[" + i + "] ";
-            b.set(selector + "#RowPrefix.Text", row.prefix);
-            b.set(selector + "#RowLogger.Text", row.logger);
-            b.set(selector + "#RowSuffix.Text", row.suffix);
-            b.set(selector + "#RowPrefix.Style.TextColor", row.colorHex);
-            b.set(selector + "#RowSuffix.Style.TextColor", row.colorHex);
-        }
-        this.sendUpdate(b, null, false);
+        UIEventBuilder events = new UIEventBuilder();
+        if (writeRowDiff(b, events, rows)) {
+            send(b, events);
+        }
+    }
+
+    // Used when the filters change and the client's rows no longer line up with the snapshot.
+    public void rebuildRows(@Nonnull List<LogRow> rows) {
+        UICommandBuilder b = new UICommandBuilder();
+        UIEventBuilder events = new UIEventBuilder();
+        writeAllRows(b, events, rows);
+        send(b, events);
     }
+
+    // Shows one row's full message and stack trace above the list.
+    void showDetail(@Nonnull String title, @Nonnull String text) {
+        UICommandBuilder b = new UICommandBuilder();
+        b.set(SEL_DETAIL_TITLE + ".Text", title);
+        b.set(SEL_DETAIL_TEXT + ".Text", text);
+        b.set(SEL_DETAIL_BOX + ".Visible", true);
+        pending.add(SEL_DETAIL_TITLE, title);
+        pending.add(SEL_DETAIL_TEXT, text);
+        pending.add(SEL_DETAIL_BOX, null);
+        send(b);
+    }
+
+    void hideDetail() {
+        UICommandBuilder b = new UICommandBuilder();
+        // Drop the text too so the client does not keep a large trace around.
+        b.set(SEL_DETAIL_TEXT + ".Text", "");
+        b.set(SEL_DETAIL_BOX + ".Visible", false);
+        pending.add(SEL_DETAIL_TEXT, null);
+        pending.add(SEL_DETAIL_BOX, null);
+        send(b);
+    }
+
+    private void send(@Nonnull UICommandBuilder b) {
+        send(b, null);
+    }
+
+    private void send(@Nonnull UICommandBuilder b, @Nullable UIEventBuilder events) {
+        long start = System.nanoTime();
+        this.sendUpdate(b, events, false);
+        long cost = System.nanoTime() - start;
+        sendCostNanos = sendCostNanos == 0 ? cost : sendCostNanos + (cost - sendCostNanos) / 8;
+        lastCommands = pending.commands();
+        lastBytes = pending.bytes();
+        pending.reset();
+        updatesSent++;
+        commandsSent += lastCommands;
+        bytesSent += lastBytes;
+        ConsoleMetrics metrics = manager.getMetrics();
+        metrics.send.record(cost);
+        metrics.recordUpdate(lastCommands, lastBytes);
+    }
+
+    // Runs task off the world thread, holding the page's lock, after every task submitted before
+    // it. Paging back into history can read thousands of lines from disk, and building a view for
+    // a new filter scans the whole buffer, so none of that may hold up the world.
+    void submit(@Nonnull Runnable task) {
+        tasks.add(task);
+        if (draining.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("HytaleConsole-page").start(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            lock.lock();
+            try {
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Console page update failed");
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            draining.set(false);
+            // A task added after the last poll but before the flag was cleared found it still set.
+        } while (!tasks.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    // The refresh skips a page that is busy rather than wait for it.
+    boolean tryLock() {
+        return lock.tryLock();
+    }
+
+    void unlock() {
+        lock.unlock();
+    }
+
+    // The counters may be mid-update relative to each other; close enough for stats.
+    @Nonnull
+    String describeStats() {
+        long updates = updatesSent;
+        long avgCommands = updates == 0 ? 0 : commandsSent / updates;
+        long avgBytes = updates == 0 ? 0 : bytesSent / updates;
+        return viewerName + ": " + updates + " updates, last " + lastCommands + " cmds/~" + lastBytes + " B, avg "
+                + avgCommands + " cmds/~" + avgBytes + " B, send ~" + sendCostNanos / 1_000L + "us";
+    }
+
+    private void writeAllRows(@Nonnull UICommandBuilder b, @Nonnull UIEventBuilder events, @Nonnull List<LogRow> rows) {
+        writeViewStatus(b, true);
+        rowWriter.writeAll(b, rows, (index, seq) -> bindExpand(events, index, seq));
+    }
+
+    // Returns false when nothing changed.
+    private boolean writeRowDiff(@Nonnull UICommandBuilder b, @Nonnull UIEventBuilder events, @Nonnull List<LogRow> rows) {
+        boolean statusChanged = writeViewStatus(b, false);
+        return rowWriter.writeDiff(b, rows, (index, seq) -> bindExpand(events, index, seq)) || statusChanged;
+    }
+
+    // Each row's expand button carries its row's sequence, so the binding stays right as rows shift.
+    private void bindExpand(@Nonnull UIEventBuilder events, int index, long seq) {
+        String selector = SEL_LOG_BOX + "[" + index + "] #RowExpand";
+        String value = String.valueOf(seq);
+        events.addEventBinding(CustomUIEventBindingType.Activating, selector, EventData.of(LogUIEventData.KEY_EXPAND, value), false);
+        pending.add(selector, value);
+    }
+
+    private boolean writeViewStatus(@Nonnull UICommandBuilder b, boolean force) {
+        String status;
+        if (anchorSeq == Long.MAX_VALUE) {
+            status = "Following newest";
+        } else if (pinned) {
+            status = "Pinned";
+        } else {
+            status = "Scrolled back";
+        }
+        if (!force && status.equals(viewStatus)) {
+            return false;
+        }
+        viewStatus = status;
+        b.set(SEL_VIEW_STATUS + ".Text", status);
+        b.set(SEL_PIN_BUTTON + ".Text", pinned ? "Unpin" : "Pin");
+        pending.add(SEL_VIEW_STATUS, status);
+        pending.add(SEL_PIN_BUTTON, "Unpin");
+        return true;
+    }
+
+    // Sets the dropdown values; the logger entries go along only if this page has an older version.
     public void updateFilterOptions(
-            @Nonnull List<DropdownEntryInfo> loggerEntries,
-            @Nonnull List<DropdownEntryInfo> minLevelEntries,
+            @Nonnull LogUIManager.LoggerEntries loggers,
             @Nullable String selectedLogger,
             @Nullable String selectedMinLevel,
             @Nullable String textFilter
     ) {
         UICommandBuilder b = new UICommandBuilder();
-        b.set(SEL_LOGGER_FILTER_INPUT + ".Entries", loggerEntries);
-        b.set(SEL_MIN_LEVEL_FILTER_INPUT + ".Entries", minLevelEntries);
+        writeLoggerEntries(b, loggers);
         String loggerValue = selectedLogger != null ? selectedLogger : LogUIManager.FILTER_ALL;
         String minLevelValue = selectedMinLevel != null ? selectedMinLevel : LogUIManager.FILTER_ALL;
         b.set(SEL_LOGGER_FILTER_INPUT + ".Value", loggerValue);
         b.set(SEL_MIN_LEVEL_FILTER_INPUT + ".Value", minLevelValue);
+        pending.add(SEL_LOGGER_FILTER_INPUT, loggerValue);
+        pending.add(SEL_MIN_LEVEL_FILTER_INPUT, minLevelValue);
         if (textFilter != null) {
             b.set(SEL_TEXT_FILTER_INPUT + ".Value", textFilter);
+            pending.add(SEL_TEXT_FILTER_INPUT, textFilter);
         }
-        this.sendUpdate(b, null, false);
+        send(b);
+    }
+
+    // Sends the logger entries only when they changed since this page last got them.
+    void updateLoggerEntries(@Nonnull LogUIManager.LoggerEntries loggers) {
+        if (loggers.version == loggerEntriesVersion) {
+            return;
+        }
+        UICommandBuilder b = new UICommandBuilder();
+        writeLoggerEntries(b, loggers);
+        // Replacing the entries resets the selection on the client.
+        b.set(SEL_LOGGER_FILTER_INPUT + ".Value", loggerFilter);
+        pending.add(SEL_LOGGER_FILTER_INPUT, loggerFilter);
+        send(b);
+    }
+
+    private void writeLoggerEntries(@Nonnull UICommandBuilder b, @Nonnull LogUIManager.LoggerEntries loggers) {
+        if (loggers.version == loggerEntriesVersion) {
+            return;
+        }
+        b.set(SEL_LOGGER_FILTER_INPUT + ".Entries", loggers.entries);
+        pending.addEntries(SEL_LOGGER_FILTER_INPUT, loggers.entries.size());
+        loggerEntriesVersion = loggers.version;
+    }
+
+    // Sequence of the newest row the client shows, or Long.MAX_VALUE when it shows none.
+    long getTopSeq() {
+        return rowWriter.getTopSeq();
+    }
+
+    long getAnchorSeq() {
+        return anchorSeq;
+    }
+
+    void setAnchorSeq(long anchorSeq) {
+        this.anchorSeq = anchorSeq;
+    }
+
+    boolean isPinned() {
+        return pinned;
+    }
+
+    void setPinned(boolean pinned) {
+        this.pinned = pinned;
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    long getFlushedSeq() {
+        return flushedSeq;
+    }
+
+    void setFlushedSeq(long flushedSeq) {
+        this.flushedSeq = flushedSeq;
+    }
+
+    long getFlushedRevision() {
+        return flushedRevision;
+    }
+
+    void setFlushedRevision(long flushedRevision) {
+        this.flushedRevision = flushedRevision;
+    }
+
+    long getNextFlushNanos() {
+        return nextFlushNanos;
+    }
+
+    void setNextFlushNanos(long nextFlushNanos) {
+        this.nextFlushNanos = nextFlushNanos;
+    }
+
+    long getSendCostNanos() {
+        return sendCostNanos;
+    }
+
+    int getLastCommands() {
+        return lastCommands;
+    }
+
+    long getLastBytes() {
+        return lastBytes;
+    }
+
+    @Nonnull
+    RowFilter getRowFilter() {
+        return view.filter;
+    }
+
+    // Filtered view shared with other pages using the same filter.
+    @Nonnull
+    FilteredView getView() {
+        return view;
+    }
+
+    void setView(@Nonnull FilteredView view) {
+        this.view = view;
+    }
+
+    // Supersedes any search still waiting or running and returns the generation for the next one.
+    long supersedeSearch() {
+        if (pendingSearch != null) {
+            pendingSearch.cancel(false);
+            pendingSearch = null;
+        }
+        return searchGeneration.incrementAndGet();
+    }
+
+    boolean isSearchCurrent(long generation) {
+        return searchGeneration.get() == generation;
+    }
+
+    void setPendingSearch(@Nullable ScheduledFuture<?> pendingSearch) {
+        this.pendingSearch = pendingSearch;
+    }
+
+    // Shows why the typed query could not be parsed; null clears the message.
+    void showFilterError(@Nullable String error) {
+        String next = error != null ? error : "";
+        if (next.equals(filterError)) {
+            return;
+        }
+        filterError = next;
+        UICommandBuilder b = new UICommandBuilder();
+        b.set(SEL_FILTER_ERROR + ".Text", next);
+        pending.add(SEL_FILTER_ERROR, next);
+        send(b);
+    }
+
+    boolean isViewedBy(@Nonnull PlayerRef other) {
+        return playerRef == other || (playerRef.getUuid() != null && playerRef.getUuid().equals(other.getUuid()));
     }
 
     @Nonnull
@@ -169,6 +566,18 @@ public class LogUIPage extends InteractiveCustomUIPage<LogUIPage.LogUIEventData>
         if (data.textFilter != null) {
             manager.onTextFilterChanged(this, data.textFilter);
         }
+        if (data.pageSize != null) {
+            manager.onPageSizeChanged(this, data.pageSize);
+        }
+        if (data.viewAction != null) {
+            manager.onViewAction(this, data.viewAction);
+        }
+        if (data.jump != null) {
+            manager.onJump(this, data.jump);
+        }
+        if (data.expand != null) {
+            manager.onExpand(this, data.expand);
+        }
     }
 
 
@@ -176,14 +585,26 @@ public class LogUIPage extends InteractiveCustomUIPage<LogUIPage.LogUIEventData>
         static final String KEY_LOGGER_FILTER = "@LoggerFilter";
         static final String KEY_MIN_LEVEL_FILTER = "@MinLevelFilter";
         static final String KEY_TEXT_FILTER = "@TextFilter";
+        static final String KEY_PAGE_SIZE = "@PageSize";
+        static final String KEY_VIEW_ACTION = "ViewAction";
+        static final String KEY_JUMP = "@JumpTo";
+        static final String KEY_EXPAND = "Expand";
         static final BuilderCodec<LogUIEventData> CODEC = BuilderCodec.builder(LogUIEventData.class, LogUIEventData::new)
                 .addField(new KeyedCodec<>(KEY_LOGGER_FILTER, BuilderCodec.STRING), (o, i) -> o.loggerFilter = i, o -> o.loggerFilter)
                 .addField(new KeyedCodec<>(KEY_MIN_LEVEL_FILTER, BuilderCodec.STRING), (o, i) -> o.minLevelFilter = i, o -> o.minLevelFilter)
                 .addField(new KeyedCodec<>(KEY_TEXT_FILTER, BuilderCodec.STRING), (o, i) -> o.textFilter = i, o -> o.textFilter)
+                .addField(new KeyedCodec<>(KEY_PAGE_SIZE, BuilderCodec.STRING), (o, i) -> o.pageSize = i, o -> o.pageSize)
+                .addField(new KeyedCodec<>(KEY_VIEW_ACTION, BuilderCodec.STRING), (o, i) -> o.viewAction = i, o -> o.viewAction)
+                .addField(new KeyedCodec<>(KEY_JUMP, BuilderCodec.STRING), (o, i) -> o.jump = i, o -> o.jump)
+                .addField(new KeyedCodec<>(KEY_EXPAND, BuilderCodec.STRING), (o, i) -> o.expand = i, o -> o.expand)
                 .build();
         private String loggerFilter;
         private String minLevelFilter;
         private String textFilter;
+        private String pageSize;
+        private String viewAction;
+        private String jump;
+        private String expand;
         private LogUIEventData() {}
     }
 }
@@ -0,0 +1,138 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Interns logger names to small ids so the row buffer only stores an int per line.
+//
+// Mods that name a logger per entity would otherwise grow this without limit, so past
+// MAX_LOGGERS new names all share the OVERFLOW id. Separately, the names offered in the logger
+// dropdown are only those that logged recently: at most MAX_LISTED of them, each dropped once
+// it has been quiet for a while. Every change to that list bumps listVersion().
+final class LoggerRegistry {
+    static final int UNKNOWN = -1;
+    static final int MAX_LOGGERS = 4096;
+    static final int MAX_LISTED = 256;
+    static final String OVERFLOW = "(other loggers)";
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final Set<String> listedNames = new ConcurrentSkipListSet<>();
+    // Replaced wholesale when they grow so readers on other threads always see a complete array.
+    private volatile String[] names = new String[16];
+    private volatile String[] labels = new String[16];
+    private volatile int count;
+    // Listing state, only touched by the refresh thread.
+    private long[] lastSeen = new long[16];
+    private boolean[] listed = new boolean[16];
+    private volatile int listVersion;
+
+    int intern(@Nonnull String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        // History reads intern too, so new names can arrive from more than one thread.
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) {
+                return id;
+            }
+            if (count >= MAX_LOGGERS - 1 && !name.equals(OVERFLOW)) {
+                return intern(OVERFLOW);
+            }
+            int next = count;
+            if (next == names.length) {
+                labels = Arrays.copyOf(labels, next * 2);
+                names = Arrays.copyOf(names, next * 2);
+            }
+            labels[next] = "[" + name + "]";
+            names[next] = name;
+            count = next + 1;
+            ids.put(name, next);
+            return next;
+        }
+    }
+
+    int find(@Nonnull String name) {
+        Integer id = ids.get(name);
+        return id != null ? id : UNKNOWN;
+    }
+
+    boolean contains(@Nonnull String name) {
+        return ids.containsKey(name);
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    // The "[name]" form shown in the logger column.
+    String label(int id) {
+        return labels[id];
+    }
+
+    // Called by the refresh thread for every live line; lists the logger if it is not already.
+    void seen(int id, long millis) {
+        if (id >= lastSeen.length) {
+            int size = Math.max(id + 1, lastSeen.length * 2);
+            lastSeen = Arrays.copyOf(lastSeen, size);
+            listed = Arrays.copyOf(listed, size);
+        }
+        lastSeen[id] = Math.max(lastSeen[id], millis);
+        if (listed[id]) {
+            return;
+        }
+        if (listedNames.size() >= MAX_LISTED) {
+            unlist(leastRecentlyListed());
+        }
+        listed[id] = true;
+        listedNames.add(names[id]);
+        listVersion++;
+    }
+
+    // Drops loggers that have not logged since cutoffMillis from the listing. Refresh thread only.
+    void expire(long cutoffMillis) {
+        int limit = Math.min(count, listed.length);
+        for (int id = 0; id < limit; id++) {
+            if (listed[id] && lastSeen[id] < cutoffMillis) {
+                unlist(id);
+            }
+        }
+    }
+
+    // Bumped whenever the listed names change.
+    int listVersion() {
+        return listVersion;
+    }
+
+    // The listed names, sorted. Read it after listVersion() so a stale copy is never taken as current.
+    @Nonnull
+    List<String> listedNames() {
+        return List.copyOf(listedNames);
+    }
+
+    int size() {
+        return count;
+    }
+
+    private int leastRecentlyListed() {
+        int oldest = -1;
+        for (int id = 0; id < listed.length; id++) {
+            if (listed[id] && (oldest < 0 || lastSeen[id] < lastSeen[oldest])) {
+                oldest = id;
+            }
+        }
+        return oldest;
+    }
+
+    private void unlist(int id) {
+        listed[id] = false;
+        listedNames.remove(names[id]);
+        listVersion++;
+    }
+}
@@ -9,13 +9,16 @@ import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
+import java.nio.file.Path;
 
 public class OpenConsoleCommand extends AbstractPlayerCommand {
     private final LogUIManager logUIManager;
 
-    public OpenConsoleCommand(@Nonnull LogUIManager logUIManager) {
+    public OpenConsoleCommand(@Nonnull LogUIManager logUIManager, @Nonnull Path exportDirectory) {
         super("console", "Open up the log console!");
         this.logUIManager = logUIManager;
+        this.addSubCommand(new ConsoleStatsCommand(logUIManager));
+        this.addSubCommand(new ConsoleExportCommand(logUIManager, exportDirectory));
     }
 
     @Override
@@ -0,0 +1,101 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Runs the console refresh only when there is something to do. A signal schedules a run one
+// coalescing window out, so a burst of records costs a single refresh; the refresh itself
+// reports how long until it next needs to run (-1 to go idle until the next signal).
+// At most one run is in flight at a time.
+final class RefreshScheduler {
+    private final ScheduledExecutorService executor;
+    private final LongSupplier task;
+    private final long coalesceNanos;
+    private final long retryNanos;
+    // All guarded by this.
+    private ScheduledFuture<?> future;
+    private long dueNanos;
+    private boolean running;
+    private boolean signalledWhileRunning;
+    private boolean stopped;
+
+    RefreshScheduler(@Nonnull ScheduledExecutorService executor, @Nonnull LongSupplier task, long coalesceNanos, long retryNanos) {
+        this.executor = executor;
+        this.task = task;
+        this.coalesceNanos = coalesceNanos;
+        this.retryNanos = retryNanos;
+    }
+
+    // Safe to call from any thread, including logging producers; never logs itself.
+    synchronized void signal() {
+        if (stopped) {
+            return;
+        }
+        if (running) {
+            signalledWhileRunning = true;
+            return;
+        }
+        scheduleWithin(coalesceNanos);
+    }
+
+    synchronized void stop() {
+        stopped = true;
+        if (future != null) {
+            future.cancel(false);
+            future = null;
+        }
+    }
+
+    // Keeps the earlier of the current and the requested deadline.
+    private void scheduleWithin(long delayNanos) {
+        long due = System.nanoTime() + delayNanos;
+        if (future != null) {
+            if (dueNanos - due <= 0) {
+                return;
+            }
+            future.cancel(false);
+        }
+        try {
+            future = executor.schedule(this::run, delayNanos, TimeUnit.NANOSECONDS);
+            dueNanos = due;
+        } catch (RejectedExecutionException e) {
+            // The server executor is shutting down; nothing left to refresh for.
+            future = null;
+            stopped = true;
+        }
+    }
+
+    private void run() {
+        synchronized (this) {
+            if (stopped || running) {
+                return;
+            }
+            running = true;
+            signalledWhileRunning = false;
+            future = null;
+        }
+        long next;
+        try {
+            next = task.getAsLong();
+        } catch (RuntimeException e) {
+            HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Console refresh failed");
+            next = retryNanos;
+        }
+        synchronized (this) {
+            running = false;
+            if (stopped) {
+                return;
+            }
+            if (signalledWhileRunning) {
+                scheduleWithin(coalesceNanos);
+            }
+            if (next >= 0) {
+                scheduleWithin(next);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+// Compiled once per filter change: the logger/level dropdowns plus the parsed text query.
+final class RowFilter {
+    private final RowFormatter formatter;
+    private final boolean anyLogger;
+    private final int loggerId;
+    private final int minLevelValue;
+    private final LogQuery query;
+
+    // A null logger matches every logger.
+    RowFilter(@Nonnull RowFormatter formatter, @Nonnull LoggerRegistry loggers, @Nullable String logger, int minLevelValue, @Nonnull LogQuery query) {
+        this.formatter = formatter;
+        this.anyLogger = logger == null;
+        this.loggerId = anyLogger ? LoggerRegistry.UNKNOWN : loggers.find(logger);
+        this.minLevelValue = minLevelValue;
+        this.query = query;
+    }
+
+    @Nonnull
+    LogQuery getQuery() {
+        return query;
+    }
+
+    // Same logger and level dropdowns, whatever the query.
+    boolean sameColumns(@Nonnull RowFilter other) {
+        return anyLogger == other.anyLogger && loggerId == other.loggerId && minLevelValue == other.minLevelValue;
+    }
+
+    boolean matches(@Nonnull LogBuffer buffer, long seq) {
+        if (!anyLogger && buffer.loggerId(seq) != loggerId) {
+            return false;
+        }
+        if (minLevelValue != Integer.MIN_VALUE && buffer.level(seq) < minLevelValue) {
+            return false;
+        }
+        for (LogQuery.RowPredicate predicate : query.rowPredicates) {
+            if (!predicate.test(buffer, seq)) {
+                return false;
+            }
+        }
+        if (query.textPredicates.length == 0) {
+            return true;
+        }
+        String haystack = haystack(buffer, seq);
+        for (LogQuery.TextPredicate predicate : query.textPredicates) {
+            if (!predicate.test(haystack)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Substring every match must contain in its message, usable to narrow candidates through the
+    // text index. Null when there is none, or when the needle could also match a logger name, the
+    // time or the level, which the index does not cover.
+    @Nullable
+    String indexNeedle() {
+        String needle = query.indexNeedle;
+        return needle != null && !formatter.mayMatchOutsideMessage(needle) ? needle : null;
+    }
+
+    @Nonnull
+    private String haystack(@Nonnull LogBuffer buffer, long seq) {
+        String stored = buffer.searchText(seq);
+        if (stored != null) {
+            return stored;
+        }
+        return formatter.searchText(buffer.millis(seq), buffer.level(seq), buffer.loggerId(seq), buffer.message(seq));
+    }
+}
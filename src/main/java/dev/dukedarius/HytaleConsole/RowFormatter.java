@@ -0,0 +1,231 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+// Builds display rows from the columnar buffer. Only rows that are actually sent to a client
+// (or matched against a text filter) pay for string formatting.
+final class RowFormatter {
+    private static final DateTimeFormatter TIME_FMT = DateTimeFormatter.ofPattern("HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+    // Rows show at most this much of their message's first line; the rest, and any stack
+    // trace, is sent when the row is expanded.
+    static final int PREVIEW_CHARS = 200;
+    private static final DateTimeFormatter EXPORT_TIME_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+            .withZone(ZoneId.systemDefault());
+
+    private final LoggerRegistry loggers;
+    private final Map<Integer, String> levelNames = new ConcurrentHashMap<>();
+    private volatile CachedTime cachedTime = new CachedTime(Long.MIN_VALUE, "");
+
+    RowFormatter(@Nonnull LoggerRegistry loggers) {
+        this.loggers = loggers;
+        for (Level level : new Level[]{Level.SEVERE, Level.WARNING, Level.INFO, Level.CONFIG, Level.FINE, Level.FINER, Level.FINEST, Level.OFF, Level.ALL}) {
+            registerLevel(level);
+        }
+    }
+
+    void registerLevel(@Nonnull Level level) {
+        levelNames.putIfAbsent(level.intValue(), level.getName());
+    }
+
+    @Nonnull
+    LogRow format(@Nonnull LogBuffer buffer, long seq) {
+        int levelValue = buffer.level(seq);
+        int loggerId = buffer.loggerId(seq);
+        String color = levelColor(levelValue);
+        return new LogRow(
+                seq,
+                prefix(buffer.millis(seq), levelValue),
+                loggers.label(loggerId),
+                loggerName(loggerId),
+                levelValue,
+                suffix(buffer, seq, true),
+                color,
+                buffer.repeats(seq)
+        );
+    }
+
+    // A plain-text line for exports, with the full date, the logger's real name, the whole
+    // message and the stack trace.
+    @Nonnull
+    String exportLine(@Nonnull LogBuffer buffer, long seq) {
+        int levelValue = buffer.level(seq);
+        String line = EXPORT_TIME_FMT.format(Instant.ofEpochMilli(buffer.millis(seq))) + " [" + levelName(levelValue) + "] ["
+                + loggerName(buffer.loggerId(seq)) + "]" + suffix(buffer, seq, false);
+        String trace = buffer.trace(seq);
+        return trace != null ? line + "\n" + trace : line;
+    }
+
+    // One newline-terminated JSON object for the tail endpoint, with the whole message and trace.
+    @Nonnull
+    String jsonLine(@Nonnull LogBuffer buffer, long seq) {
+        int levelValue = buffer.level(seq);
+        String message = buffer.message(seq);
+        String trace = buffer.trace(seq);
+        StringBuilder sb = new StringBuilder(message.length() + (trace != null ? trace.length() : 0) + 128);
+        sb.append("{\"seq\":").append(seq).append(",\"time\":").append(buffer.millis(seq)).append(",\"level\":");
+        appendJson(sb, levelName(levelValue));
+        sb.append(",\"logger\":");
+        appendJson(sb, loggerName(buffer.loggerId(seq)));
+        sb.append(",\"message\":");
+        appendJson(sb, message);
+        int repeats = buffer.repeats(seq);
+        if (repeats > 1) {
+            sb.append(",\"repeats\":").append(repeats);
+        }
+        int suppressed = buffer.suppressedBefore(seq);
+        if (suppressed > 0) {
+            sb.append(",\"suppressedBefore\":").append(suppressed);
+        }
+        if (trace != null) {
+            sb.append(",\"trace\":");
+            appendJson(sb, trace);
+        }
+        return sb.append("}\n").toString();
+    }
+
+    static void appendJson(@Nonnull StringBuilder sb, @Nonnull String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    @Nonnull
+    private String suffix(@Nonnull LogBuffer buffer, long seq, boolean preview) {
+        String message = buffer.message(seq);
+        String marker = null;
+        if (preview) {
+            int firstLine = message.indexOf('\n');
+            int end = Math.min(firstLine >= 0 ? firstLine : message.length(), PREVIEW_CHARS);
+            if (buffer.trace(seq) != null) {
+                marker = "  [+trace]";
+            } else if (end < message.length()) {
+                marker = "  [+more]";
+            }
+            if (end < message.length()) {
+                message = message.substring(0, end) + (end == PREVIEW_CHARS ? "..." : "");
+            }
+        }
+        int repeats = buffer.repeats(seq);
+        int suppressed = buffer.suppressedBefore(seq);
+        if (repeats <= 1 && suppressed == 0 && marker == null) {
+            return " " + message;
+        }
+        StringBuilder sb = new StringBuilder(message.length() + 64).append(' ').append(message);
+        if (marker != null) {
+            sb.append(marker);
+        }
+        if (repeats > 1) {
+            sb.append("  (x").append(repeats).append(", last ").append(time(buffer.lastMillis(seq))).append(')');
+        }
+        if (suppressed > 0) {
+            sb.append("  [+").append(suppressed).append(" suppressed]");
+        }
+        return sb.toString();
+    }
+
+    @Nonnull
+    String loggerName(int loggerId) {
+        return loggers.name(loggerId);
+    }
+
+    @Nonnull
+    String prefix(long millis, int levelValue) {
+        return "[" + time(millis) + "][" + levelName(levelValue) + "]";
+    }
+
+    // The lowercased "logger [time][LEVEL]  message" line that text filters match against.
+    @Nonnull
+    String searchText(long millis, int levelValue, int loggerId, @Nonnull String message) {
+        return searchPrefix(millis, levelValue, loggerId) + message.toLowerCase(Locale.ROOT);
+    }
+
+    // The part of searchText before the message. The text index leaves it out.
+    @Nonnull
+    String searchPrefix(long millis, int levelValue, int loggerId) {
+        return (loggerName(loggerId) + " " + prefix(millis, levelValue) + "  ").toLowerCase(Locale.ROOT);
+    }
+
+    // Whether a lowercased needle could be found in a row's search prefix or across its end, so
+    // that only the message is no guide to which rows contain it. Covers the loggers and levels
+    // registered so far.
+    boolean mayMatchOutsideMessage(@Nonnull String needle) {
+        if (needle.isEmpty() || needle.indexOf('[') >= 0 || needle.indexOf(']') >= 0
+                || Character.isWhitespace(needle.charAt(0)) || Character.isWhitespace(needle.charAt(needle.length() - 1))) {
+            return true;
+        }
+        if (needle.indexOf(':') >= 0 && needle.chars().allMatch(c -> c == ':' || (c >= '0' && c <= '9'))) {
+            return true;
+        }
+        for (String name : levelNames.values()) {
+            if (name.toLowerCase(Locale.ROOT).contains(needle)) {
+                return true;
+            }
+        }
+        for (int id = 0; id < loggers.size(); id++) {
+            if (loggers.name(id).toLowerCase(Locale.ROOT).contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nonnull
+    String levelName(int levelValue) {
+        String name = levelNames.get(levelValue);
+        return name != null ? name : String.valueOf(levelValue);
+    }
+
+    // Consecutive lines usually share a second, so the formatted time is cached per second.
+    @Nonnull
+    String time(long millis) {
+        long second = Math.floorDiv(millis, 1000L);
+        CachedTime cached = cachedTime;
+        if (cached.second != second) {
+            cached = new CachedTime(second, TIME_FMT.format(Instant.ofEpochSecond(second)));
+            cachedTime = cached;
+        }
+        return cached.text;
+    }
+
+    @Nonnull
+    static String levelColor(int v) {
+        if (v >= 1000) { // SEVERE
+            return "#ff5555";
+        } else if (v >= 900) { // WARNING
+            return "#ffb86c";
+        } else if (v >= 800) { // INFO
+            return "#e6e6e6";
+        } else if (v >= 700) { // CONFIG
+            return "#9aa5b1";
+        } else {
+            return "#8be9fd";
+        }
+    }
+
+    private record CachedTime(long second, String text) {
+    }
+}
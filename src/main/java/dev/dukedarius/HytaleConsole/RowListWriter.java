@@ -0,0 +1,148 @@
+package dev.dukedarius.HytaleConsole;
+
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+// Turns a row window into UI commands for one client's log list, remembering which rows the
+// client has so later windows can be sent as a diff.
+final class RowListWriter {
+    private final String listSelector;
+    private final String rowTemplate;
+    private final UpdateCounter counter;
+    // Sequence numbers of the rows the client currently shows, in list order (newest first).
+    private long[] clientSeqs = new long[0];
+    // Repeat count each client row was last written with; a change is updated in place.
+    private int[] clientRepeats = new int[0];
+
+    RowListWriter(@Nonnull String listSelector, @Nonnull String rowTemplate, @Nonnull UpdateCounter counter) {
+        this.listSelector = listSelector;
+        this.rowTemplate = rowTemplate;
+        this.counter = counter;
+    }
+
+    // Told the final list index of every row element written, e.g. to bind its events. Indexes
+    // are those after the whole builder has been applied.
+    @FunctionalInterface
+    interface RowWritten {
+        void accept(int index, long seq);
+    }
+
+    // Sequence of the newest row the client shows, or Long.MAX_VALUE when it shows none.
+    long getTopSeq() {
+        return clientSeqs.length > 0 ? clientSeqs[0] : Long.MAX_VALUE;
+    }
+
+    void writeAll(@Nonnull UICommandBuilder b, @Nonnull List<LogRow> rows, @Nonnull RowWritten written) {
+        b.clear(listSelector);
+        counter.add(listSelector, null);
+        long[] seqs = new long[rows.size()];
+        int[] repeats = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            LogRow row = rows.get(i);
+            b.append(listSelector, rowTemplate);
+            counter.add(listSelector, rowTemplate);
+            writeRow(b, i, row);
+            written.accept(i, row.seq);
+            seqs[i] = row.seq;
+            repeats[i] = row.repeats;
+        }
+        this.clientSeqs = seqs;
+        this.clientRepeats = repeats;
+    }
+
+    // Both the client rows and the window are ordered newest first, so a single merge pass
+    // tells us which rows to insert and which to remove. Returns false when nothing changed.
+    boolean writeDiff(@Nonnull UICommandBuilder b, @Nonnull List<LogRow> rows, @Nonnull RowWritten written) {
+        long[] current = clientSeqs;
+        int[] currentRepeats = clientRepeats;
+        int inserts = 0;
+        int removes = 0;
+        int updates = 0;
+        int i = 0;
+        int j = 0;
+        while (i < rows.size() || j < current.length) {
+            if (j >= current.length || (i < rows.size() && rows.get(i).seq > current[j])) {
+                inserts++;
+                i++;
+            } else if (i >= rows.size() || rows.get(i).seq < current[j]) {
+                removes++;
+                j++;
+            } else {
+                if (rows.get(i).repeats != currentRepeats[j]) {
+                    updates++;
+                }
+                i++;
+                j++;
+            }
+        }
+        if (inserts == 0 && removes == 0 && updates == 0) {
+            return false;
+        }
+        if (inserts + removes >= rows.size()) {
+            writeAll(b, rows, written);
+            return true;
+        }
+
+        long[] next = new long[rows.size()];
+        int[] nextRepeats = new int[rows.size()];
+        int clientSize = current.length;
+        int pos = 0;
+        i = 0;
+        j = 0;
+        while (i < rows.size() || j < current.length) {
+            if (j >= current.length || (i < rows.size() && rows.get(i).seq > current[j])) {
+                LogRow row = rows.get(i);
+                if (pos < clientSize) {
+                    b.insertBefore(listSelector + "[" + pos + "]", rowTemplate);
+                } else {
+                    b.append(listSelector, rowTemplate);
+                }
+                counter.add(listSelector, rowTemplate);
+                writeRow(b, pos, row);
+                written.accept(pos, row.seq);
+                next[pos] = row.seq;
+                nextRepeats[pos] = row.repeats;
+                clientSize++;
+                pos++;
+                i++;
+            } else if (i >= rows.size() || rows.get(i).seq < current[j]) {
+                b.remove(listSelector + "[" + pos + "]");
+                counter.add(listSelector, null);
+                clientSize--;
+                j++;
+            } else {
+                LogRow row = rows.get(i);
+                if (row.repeats != currentRepeats[j]) {
+                    // A collapsed row grew; only its text changes.
+                    String selector = listSelector + "[" + pos + "] #RowSuffix.Text";
+                    b.set(selector, row.suffix);
+                    counter.add(selector, row.suffix);
+                }
+                next[pos] = current[j];
+                nextRepeats[pos] = row.repeats;
+                pos++;
+                i++;
+                j++;
+            }
+        }
+        this.clientSeqs = next;
+        this.clientRepeats = nextRepeats;
+        return true;
+    }
+
+    private void writeRow(@Nonnull UICommandBuilder b, int index, @Nonnull LogRow row) {
+        String selector = listSelector + "[" + index + "] ";
+        b.set(selector + "#RowPrefix.Text", row.prefix);
+        b.set(selector + "#RowLogger.Text", row.logger);
+        b.set(selector + "#RowSuffix.Text", row.suffix);
+        b.set(selector + "#RowPrefix.Style.TextColor", row.colorHex);
+        b.set(selector + "#RowSuffix.Style.TextColor", row.colorHex);
+        counter.add(selector, row.prefix);
+        counter.add(selector, row.logger);
+        counter.add(selector, row.suffix);
+        counter.add(selector, row.colorHex);
+        counter.add(selector, row.colorHex);
+    }
+}
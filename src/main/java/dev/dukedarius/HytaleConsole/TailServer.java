@@ -0,0 +1,430 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Local endpoint for tail-style tools outside the game. A client connects, sends one line with
+// a filter in the console's query language (an empty line for everything) and then receives
+// newline-delimited JSON: the newest BACKLOG matching lines, oldest first, followed by new ones
+// as they arrive. A bad filter gets a single {"error": ...} line and the connection is closed.
+//
+// Everything runs on one selector thread that pulls rows from the same filtered views the pages
+// use, so the refresh only has to wake it. Only building a new client's view and backlog, which
+// can scan the whole buffer, happens on a virtual thread that hands the result back. Each
+// client holds at most QUEUE_BYTES of encoded lines; while that is full nothing more is read
+// for it. A client that falls behind the in-memory buffer gets a {"resync": true} line and
+// continues from the newest line, and one that has not taken any bytes for STALL_MILLIS is
+// disconnected.
+final class TailServer implements Closeable {
+    private static final int BACKLOG = 100;
+    private static final int MAX_CLIENTS = 16;
+    private static final int MAX_REQUEST_BYTES = 4096;
+    private static final int QUEUE_BYTES = 256 * 1024;
+    private static final long STALL_MILLIS = 30_000;
+    private static final long POLL_MILLIS = 1_000;
+    private static final String UNIX_PREFIX = "unix:";
+
+    private final LogUIManager manager;
+    private final RowFormatter formatter;
+    private final ConsoleMetrics metrics;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    @Nullable
+    private final Path socketFile;
+    private final Thread thread;
+    // Only touched by the selector thread.
+    private final List<Client> clients = new ArrayList<>();
+    // Prepared subscriptions waiting for the selector thread to apply them.
+    private final Queue<Subscription> prepared = new ConcurrentLinkedQueue<>();
+    private volatile int clientCount;
+    private volatile boolean closed;
+
+    TailServer(@Nonnull SocketAddress address, @Nonnull LogUIManager manager, @Nonnull RowFormatter formatter,
+               @Nonnull ConsoleMetrics metrics) throws IOException {
+        this.manager = manager;
+        this.formatter = formatter;
+        this.metrics = metrics;
+        if (address instanceof UnixDomainSocketAddress unix) {
+            // A socket file left behind by an earlier run would make the bind fail.
+            socketFile = unix.getPath();
+            Files.deleteIfExists(socketFile);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            socketFile = null;
+            server = ServerSocketChannel.open();
+        }
+        try {
+            server.bind(address);
+            server.configureBlocking(false);
+            selector = Selector.open();
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        thread = new Thread(this::run, "HytaleConsole-tail");
+        thread.setDaemon(true);
+    }
+
+    // "unix:<path>" for a Unix domain socket, otherwise "host:port" on a loopback address.
+    @Nonnull
+    static SocketAddress parseAddress(@Nonnull String address) {
+        String trimmed = address.trim();
+        if (trimmed.startsWith(UNIX_PREFIX)) {
+            return UnixDomainSocketAddress.of(trimmed.substring(UNIX_PREFIX.length()));
+        }
+        int colon = trimmed.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Expected host:port or unix:<path>, got \"" + address + "\"");
+        }
+        int port;
+        try {
+            port = Integer.parseInt(trimmed.substring(colon + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad port in \"" + address + "\"", e);
+        }
+        InetSocketAddress inet = new InetSocketAddress(trimmed.substring(0, colon), port);
+        if (inet.isUnresolved() || !inet.getAddress().isLoopbackAddress()) {
+            throw new IllegalArgumentException("The tail endpoint only listens on loopback addresses, not \"" + address + "\"");
+        }
+        return inet;
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    // Called by the refresh after new rows were appended; never blocks.
+    void signal() {
+        selector.wakeup();
+    }
+
+    int clients() {
+        return clientCount;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+        if (!thread.isAlive()) {
+            // Never started; nothing else will release the sockets.
+            shutdown();
+            return;
+        }
+        try {
+            thread.join(POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select(POLL_MILLIS);
+                for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); ) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Client client = (Client) key.attachment();
+                    try {
+                        if (key.isReadable()) {
+                            read(client);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            write(client, System.currentTimeMillis());
+                        }
+                    } catch (IOException e) {
+                        drop(client);
+                    }
+                }
+                for (Subscription subscription; (subscription = prepared.poll()) != null; ) {
+                    apply(subscription);
+                }
+                long now = System.currentTimeMillis();
+                for (Client client : List.copyOf(clients)) {
+                    try {
+                        pump(client, now);
+                    } catch (IOException e) {
+                        drop(client);
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (!closed) {
+                HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Console tail endpoint failed, closing it");
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        if (clients.size() >= MAX_CLIENTS) {
+            channel.close();
+            return;
+        }
+        channel.configureBlocking(false);
+        Client client = new Client(channel);
+        client.key = channel.register(selector, SelectionKey.OP_READ, client);
+        clients.add(client);
+        clientCount = clients.size();
+    }
+
+    private void read(@Nonnull Client client) throws IOException {
+        if (client.view != null || client.closing || client.subscribing) {
+            // Nothing is expected after the filter line; just notice the client going away.
+            client.request.clear();
+            if (client.channel.read(client.request) < 0) {
+                drop(client);
+            }
+            return;
+        }
+        int read = client.channel.read(client.request);
+        if (read < 0) {
+            drop(client);
+            return;
+        }
+        ByteBuffer request = client.request;
+        for (int i = 0; i < request.position(); i++) {
+            if (request.get(i) == '\n') {
+                subscribe(client, new String(request.array(), 0, i, StandardCharsets.UTF_8).strip());
+                return;
+            }
+        }
+        if (!request.hasRemaining()) {
+            fail(client, "Filter line longer than " + MAX_REQUEST_BYTES + " bytes");
+        }
+    }
+
+    private void subscribe(@Nonnull Client client, @Nonnull String queryText) {
+        client.subscribing = true;
+        Runnable task = () -> {
+            prepared.add(prepare(client, queryText));
+            selector.wakeup();
+        };
+        Thread.ofVirtual().name("HytaleConsole-tail-subscribe").start(task);
+    }
+
+    // Builds the client's view and reads its backlog. Runs off the selector thread.
+    @Nonnull
+    private Subscription prepare(@Nonnull Client client, @Nonnull String queryText) {
+        FilteredView view;
+        try {
+            view = manager.acquireTailView(queryText, () -> closed);
+        } catch (LogQuery.ParseException e) {
+            return new Subscription(client, null, List.of(), 0, e.getMessage());
+        } catch (CancellationException e) {
+            // Shutting down.
+            return new Subscription(client, null, List.of(), 0, null);
+        }
+        // Newer matches may not be in the view yet; pump picks them up from here once they are.
+        long head = view.scannedTo() - 1;
+        List<String> backlog = new ArrayList<>();
+        manager.scanOlder(view, head, (buffer, seq) -> {
+            String line = formatter.jsonLine(buffer, seq);
+            if (buffer.validate(seq)) {
+                backlog.add(line);
+            }
+            return backlog.size() < BACKLOG;
+        });
+        return new Subscription(client, view, backlog, head, null);
+    }
+
+    private void apply(@Nonnull Subscription subscription) {
+        Client client = subscription.client;
+        client.subscribing = false;
+        if (!clients.contains(client)) {
+            // Dropped while its view was being built.
+            if (subscription.view != null) {
+                manager.releaseView(subscription.view);
+            }
+            return;
+        }
+        if (subscription.error != null) {
+            fail(client, subscription.error);
+            return;
+        }
+        if (subscription.view == null) {
+            drop(client);
+            return;
+        }
+        client.view = subscription.view;
+        for (int i = subscription.backlog.size() - 1; i >= 0; i--) {
+            client.enqueue(subscription.backlog.get(i));
+        }
+        client.lastSeq = subscription.lastSeq;
+    }
+
+    // Reads matching rows after the client's last one until its queue is full.
+    private void pump(@Nonnull Client client, long now) throws IOException {
+        if (client.view != null && !client.closing) {
+            if (client.queue.isEmpty()) {
+                client.lastProgress = now;
+            }
+            if (client.lastSeq + 1 < manager.completeSeq()) {
+                // Lines it has not had were evicted; reading them back from disk would only put it further behind.
+                client.lastSeq = manager.headSeq();
+                client.enqueue("{\"resync\":true}\n");
+                metrics.tailResyncs.increment();
+            }
+            if (client.queuedBytes < QUEUE_BYTES) {
+                // Read first: every match up to here is in the view, so a scan that was not cut
+                // short has seen them all even when the last ones were filtered out.
+                long caughtUp = client.view.scannedTo() - 1;
+                manager.scanNewer(client.view, client.lastSeq, (buffer, seq) -> {
+                    String line = formatter.jsonLine(buffer, seq);
+                    // A row evicted while it was read is skipped rather than sent half overwritten.
+                    if (buffer.validate(seq)) {
+                        client.enqueue(line);
+                    }
+                    client.lastSeq = seq;
+                    return client.queuedBytes < QUEUE_BYTES;
+                });
+                if (client.queuedBytes < QUEUE_BYTES) {
+                    // Otherwise a selective filter would leave lastSeq far behind and trip the resync.
+                    client.lastSeq = Math.max(client.lastSeq, caughtUp);
+                }
+            }
+        }
+        if (client.queue.isEmpty()) {
+            return;
+        }
+        if (now - client.lastProgress > STALL_MILLIS) {
+            metrics.tailDisconnects.increment();
+            drop(client);
+            return;
+        }
+        write(client, now);
+    }
+
+    private void write(@Nonnull Client client, long now) throws IOException {
+        if (!client.key.isValid()) {
+            return;
+        }
+        long written = client.channel.write(client.queue.toArray(new ByteBuffer[0]));
+        if (written > 0) {
+            client.lastProgress = now;
+        }
+        while (!client.queue.isEmpty() && !client.queue.peekFirst().hasRemaining()) {
+            client.queuedBytes -= client.queue.pollFirst().capacity();
+        }
+        if (client.queue.isEmpty()) {
+            if (client.closing) {
+                drop(client);
+                return;
+            }
+            client.key.interestOps(SelectionKey.OP_READ);
+        } else {
+            client.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    // Sends the error and closes the connection once it has been written.
+    private void fail(@Nonnull Client client, @Nonnull String message) {
+        StringBuilder sb = new StringBuilder(message.length() + 16).append("{\"error\":");
+        RowFormatter.appendJson(sb, message);
+        client.enqueue(sb.append("}\n").toString());
+        client.closing = true;
+    }
+
+    private void drop(@Nonnull Client client) {
+        if (!clients.remove(client)) {
+            return;
+        }
+        clientCount = clients.size();
+        if (client.view != null) {
+            manager.releaseView(client.view);
+            client.view = null;
+        }
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // Already gone.
+        }
+    }
+
+    private void shutdown() {
+        for (Client client : List.copyOf(clients)) {
+            drop(client);
+        }
+        for (Subscription subscription; (subscription = prepared.poll()) != null; ) {
+            apply(subscription);
+        }
+        try {
+            selector.close();
+            server.close();
+            if (socketFile != null) {
+                Files.deleteIfExists(socketFile);
+            }
+        } catch (IOException e) {
+            HytaleConsolePlugin.LOGGER.atWarning().withCause(e).log("Could not close the console tail endpoint");
+        }
+    }
+
+    private static final class Client {
+        final SocketChannel channel;
+        final ByteBuffer request = ByteBuffer.allocate(MAX_REQUEST_BYTES);
+        // Encoded lines not yet written, oldest first.
+        final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+        SelectionKey key;
+        int queuedBytes;
+        // Null until the filter line has been read.
+        @Nullable
+        FilteredView view;
+        long lastSeq;
+        long lastProgress = System.currentTimeMillis();
+        boolean closing;
+        // Set while its view is being prepared.
+        boolean subscribing;
+
+        Client(@Nonnull SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void enqueue(@Nonnull String line) {
+            ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            queue.addLast(bytes);
+            queuedBytes += bytes.capacity();
+        }
+    }
+
+    // A client's view and backlog, or the reason it gets none: a filter error, or a null view
+    // and no error if the build was cancelled.
+    private record Subscription(@Nonnull Client client, @Nullable FilteredView view, @Nonnull List<String> backlog,
+                                long lastSeq, @Nullable String error) {
+    }
+}
@@ -0,0 +1,452 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongPredicate;
+
+// Trigram posting index over the lowercased messages of the in-memory rows. A substring query
+// walks the shortest posting list of its trigrams, checks the others by binary search and only
+// then hands the surviving sequences to the caller for verification. The logger, time and level
+// are left out: they are cheap to test directly, and a trigram such as "[00" would list nearly
+// every row.
+//
+// Each trigram has one list per retention tier. A tier evicts its oldest line first, so the dead
+// postings of a list are always a prefix, found by binary search; a trim pass every TRIM_ROWS
+// rows drops them from every list. Postings are int offsets from a base sequence per list.
+//
+// Written by the refresh thread only. Readers on other threads may see a slightly stale view:
+// offsets are only ever appended past a list's published end, a list that grows, shrinks or is
+// trimmed moves to a new chunk, and table slots are filled key first and published with a
+// release store, so whatever a reader reaches is internally consistent. It may lack the newest
+// rows, though; indexedThrough() says up to where it is complete.
+final class TextIndex {
+    static final int GRAM = 3;
+    // Rows added between trim passes, so postings of evicted rows linger for at most this many.
+    static final int TRIM_ROWS = 4096;
+    // Table keys hold the tier in their low bits.
+    static final int MAX_TIERS = 16;
+    private static final int TIER_BITS = 4;
+    // Heap cost of a list besides its array: the Postings and Chunk objects and an array header.
+    private static final int LIST_BYTES = 64;
+    // A table slot: a long key and a reference.
+    private static final int SLOT_BYTES = 12;
+
+    private volatile Table table = new Table(1 << 12);
+    // Every row up to and including this sequence has been added.
+    private volatile long indexedThrough = -1;
+    // Heap held by the index as of the last trim pass, and how much of it is not live postings.
+    private volatile long bytes;
+    private volatile long overheadBytes;
+    private int addedSinceTrim;
+
+    static boolean isIndexable(@Nullable String needle) {
+        return needle != null && needle.length() >= GRAM;
+    }
+
+    // Indexes the lowercased message of a row in the given tier. Returns the bytes its postings
+    // take, for the buffer to count until the row is evicted; the rest is overheadBytes().
+    int add(long seq, int tier, @Nonnull String text) {
+        Table current = table;
+        int added = 0;
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            Postings postings = current.getOrCreate(key(gram(text, i), tier));
+            if (postings.add(seq)) {
+                added += Integer.BYTES;
+            }
+            if (current.needsResize()) {
+                current = current.resized(current.keys.length * 2);
+                table = current;
+            }
+        }
+        indexedThrough = seq;
+        return added;
+    }
+
+    // The buffer publishes a row before it is indexed, so a scan of the index only finds every
+    // match up to here.
+    long indexedThrough() {
+        return indexedThrough;
+    }
+
+    // Approximate heap held by the posting lists and the table, as of the last trim pass.
+    long bytes() {
+        return bytes;
+    }
+
+    // The part of bytes() that add() did not report: list objects, unused array space and the
+    // table.
+    long overheadBytes() {
+        return overheadBytes;
+    }
+
+    // Drops postings of evicted rows once TRIM_ROWS rows were added since the last pass. Lists
+    // left empty are dropped from the table when they make up a third of it.
+    void trim(@Nonnull LogBuffer rows) {
+        if (++addedSinceTrim < TRIM_ROWS) {
+            return;
+        }
+        addedSinceTrim = 0;
+        long[] tierFirst = new long[rows.tiers()];
+        for (int t = 0; t < tierFirst.length; t++) {
+            tierFirst[t] = rows.tierFirstSeq(t);
+        }
+        Table current = table;
+        int live = 0;
+        long listBytes = 0;
+        long postingBytes = 0;
+        for (int i = 0; i < current.keys.length; i++) {
+            Postings postings = current.values.get(i);
+            if (postings == null) {
+                continue;
+            }
+            postings.dropBefore(tierFirst[(int) (current.keys[i] & (MAX_TIERS - 1))]);
+            if (!postings.isEmpty()) {
+                live++;
+                listBytes += postings.bytes();
+                postingBytes += postings.size() * (long) Integer.BYTES;
+            }
+        }
+        if (current.size - live > current.size / 3) {
+            int size = Math.max(1 << 12, Integer.highestOneBit(Math.max(1, live)) << 2);
+            Table next = new Table(size);
+            for (int i = 0; i < current.keys.length; i++) {
+                Postings postings = current.values.get(i);
+                if (postings != null && !postings.isEmpty()) {
+                    next.put(current.keys[i], postings);
+                }
+            }
+            table = next;
+            current = next;
+        }
+        bytes = listBytes + (long) current.keys.length * SLOT_BYTES;
+        overheadBytes = bytes - postingBytes;
+    }
+
+    // Visits candidate sequences in [minSeq, maxSeq] oldest first, merging the tiers. Returns
+    // false if the visitor stopped the scan.
+    boolean scanAscending(@Nonnull String needle, long minSeq, long maxSeq, @Nonnull LongPredicate visitor) {
+        Table current = table;
+        Cursor[] cursors = new Cursor[MAX_TIERS];
+        int count = 0;
+        for (int tier = 0; tier < MAX_TIERS; tier++) {
+            View[] lists = postingsFor(current, needle, tier);
+            if (lists != null) {
+                Cursor cursor = new Cursor(lists, minSeq, maxSeq);
+                if (cursor.advance()) {
+                    cursors[count++] = cursor;
+                }
+            }
+        }
+        while (count > 0) {
+            int lowest = 0;
+            for (int c = 1; c < count; c++) {
+                if (cursors[c].seq < cursors[lowest].seq) {
+                    lowest = c;
+                }
+            }
+            Cursor cursor = cursors[lowest];
+            if (!visitor.test(cursor.seq)) {
+                return false;
+            }
+            if (!cursor.advance()) {
+                cursors[lowest] = cursors[--count];
+            }
+        }
+        return true;
+    }
+
+    // Posting lists of one tier for every distinct trigram of the needle, shortest first, or
+    // null if any trigram has no postings in that tier (so nothing there can match).
+    @Nullable
+    private static View[] postingsFor(@Nonnull Table table, @Nonnull String needle, int tier) {
+        int grams = needle.length() - GRAM + 1;
+        View[] lists = new View[grams];
+        int count = 0;
+        for (int i = 0; i < grams; i++) {
+            Postings postings = table.get(key(gram(needle, i), tier));
+            if (postings == null) {
+                return null;
+            }
+            View view = postings.view();
+            if (view.end == view.start) {
+                return null;
+            }
+            boolean duplicate = false;
+            for (int j = 0; j < count; j++) {
+                if (lists[j].offsets == view.offsets) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) {
+                lists[count++] = view;
+            }
+        }
+        lists = Arrays.copyOf(lists, count);
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.end - a.start, b.end - b.start));
+        return lists;
+    }
+
+    private static long gram(@Nonnull String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+    }
+
+    private static long key(long gram, int tier) {
+        return gram << TIER_BITS | tier;
+    }
+
+    // Walks the shortest list of one tier, stopping at sequences every other list also has.
+    private static final class Cursor {
+        private final View[] lists;
+        private final long maxSeq;
+        private int index;
+        long seq;
+
+        Cursor(@Nonnull View[] lists, long minSeq, long maxSeq) {
+            this.lists = lists;
+            this.maxSeq = maxSeq;
+            this.index = lists[0].upperIndex(minSeq - 1);
+        }
+
+        // Moves to the next candidate; false once there is none left.
+        boolean advance() {
+            View driver = lists[0];
+            while (index < driver.end) {
+                long candidate = driver.seq(index++);
+                if (candidate > maxSeq) {
+                    break;
+                }
+                if (containedInOthers(candidate)) {
+                    seq = candidate;
+                    return true;
+                }
+            }
+            index = driver.end;
+            return false;
+        }
+
+        private boolean containedInOthers(long candidate) {
+            for (int k = 1; k < lists.length; k++) {
+                if (!lists[k].contains(candidate)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    // Ascending sequences for one trigram in one tier.
+    private static final class Postings {
+        private volatile Chunk chunk = new Chunk(0, new int[4], 0, 0);
+
+        // False if seq is already the newest posting, i.e. the trigram repeats within the row.
+        boolean add(long seq) {
+            Chunk current = chunk;
+            int end = current.end;
+            if (end > current.start && current.seq(end - 1) == seq) {
+                return false;
+            }
+            if (end == current.start) {
+                // Empty: start over at this sequence so offsets stay small.
+                current = new Chunk(seq, current.offsets, 0, 0);
+                chunk = current;
+                end = 0;
+            }
+            if (end == current.offsets.length || seq - current.base > Integer.MAX_VALUE) {
+                int live = end - current.start;
+                current = current.copy(live * 2 <= current.offsets.length ? current.offsets.length : current.offsets.length * 2, seq);
+                chunk = current;
+                end = current.end;
+            }
+            current.offsets[end] = (int) (seq - current.base);
+            current.end = end + 1;
+            return true;
+        }
+
+        // Drops the postings below firstSeq, the oldest sequence its tier still holds, and
+        // shrinks the array once it is mostly empty.
+        void dropBefore(long firstSeq) {
+            Chunk current = chunk;
+            View view = view();
+            int from = view.upperIndex(firstSeq - 1);
+            if (from == view.start) {
+                return;
+            }
+            int live = view.end - from;
+            if (live <= current.offsets.length / 4 && current.offsets.length > 4) {
+                Chunk trimmed = new Chunk(current.base, current.offsets, from, view.end);
+                chunk = trimmed.copy(Math.max(4, Integer.highestOneBit(Math.max(1, live)) << 1), Long.MIN_VALUE);
+            } else {
+                chunk = new Chunk(current.base, current.offsets, from, view.end);
+            }
+        }
+
+        boolean isEmpty() {
+            return size() == 0;
+        }
+
+        int size() {
+            Chunk current = chunk;
+            return current.end - current.start;
+        }
+
+        long bytes() {
+            return LIST_BYTES + (long) chunk.offsets.length * Integer.BYTES;
+        }
+
+        @Nonnull
+        View view() {
+            Chunk current = chunk;
+            return new View(current.base, current.offsets, current.start, current.end);
+        }
+    }
+
+    // [start, end) of offsets is live; each is a sequence minus base. Only the writer moves end,
+    // after storing the offset there.
+    private static final class Chunk {
+        final long base;
+        final int[] offsets;
+        final int start;
+        volatile int end;
+
+        Chunk(long base, @Nonnull int[] offsets, int start, int end) {
+            this.base = base;
+            this.offsets = offsets;
+            this.start = start;
+            this.end = end;
+        }
+
+        long seq(int i) {
+            return base + offsets[i];
+        }
+
+        // The live offsets moved to a new array of the given length, rebased on the oldest of
+        // them. Postings too far below nextSeq for an int offset are dropped; a tier would have
+        // to keep a line for two billion newer ones to get there.
+        @Nonnull
+        Chunk copy(int length, long nextSeq) {
+            int from = start;
+            int to = end;
+            while (from < to && nextSeq != Long.MIN_VALUE && nextSeq - seq(from) > Integer.MAX_VALUE) {
+                from++;
+            }
+            long newBase = from < to ? seq(from) : nextSeq;
+            int shift = (int) (newBase - base);
+            int[] next = new int[length];
+            for (int i = from; i < to; i++) {
+                next[i - from] = offsets[i] - shift;
+            }
+            return new Chunk(newBase, next, 0, to - from);
+        }
+    }
+
+    private record View(long base, int[] offsets, int start, int end) {
+        long seq(int i) {
+            return base + offsets[i];
+        }
+
+        // First index whose sequence is greater than seq.
+        int upperIndex(long seq) {
+            long offset = seq - base;
+            if (offset < 0) {
+                return start;
+            }
+            if (offset >= Integer.MAX_VALUE) {
+                return end;
+            }
+            int lo = start;
+            int hi = end;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (offsets[mid] <= offset) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        boolean contains(long seq) {
+            long offset = seq - base;
+            return offset >= 0 && offset <= Integer.MAX_VALUE && Arrays.binarySearch(offsets, start, end, (int) offset) >= 0;
+        }
+    }
+
+    // Open-addressing long -> Postings map. A slot's key is written before its value is published.
+    private static final class Table {
+        final long[] keys;
+        final AtomicReferenceArray<Postings> values;
+        final int mask;
+        int size;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new AtomicReferenceArray<>(capacity);
+            mask = capacity - 1;
+        }
+
+        @Nullable
+        Postings get(long key) {
+            for (int i = slot(key); ; i = (i + 1) & mask) {
+                Postings postings = values.get(i);
+                if (postings == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    return postings;
+                }
+            }
+        }
+
+        @Nonnull
+        Postings getOrCreate(long key) {
+            int i = slot(key);
+            Postings postings;
+            while ((postings = values.get(i)) != null) {
+                if (keys[i] == key) {
+                    return postings;
+                }
+                i = (i + 1) & mask;
+            }
+            postings = new Postings();
+            keys[i] = key;
+            values.lazySet(i, postings);
+            size++;
+            return postings;
+        }
+
+        void put(long key, @Nonnull Postings postings) {
+            int i = slot(key);
+            while (values.get(i) != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values.lazySet(i, postings);
+            size++;
+        }
+
+        boolean needsResize() {
+            return size * 2 > keys.length;
+        }
+
+        @Nonnull
+        Table resized(int capacity) {
+            Table next = new Table(capacity);
+            for (int i = 0; i < keys.length; i++) {
+                Postings postings = values.get(i);
+                if (postings != null) {
+                    next.put(keys[i], postings);
+                }
+            }
+            return next;
+        }
+
+        private int slot(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Shares one formatted copy of each distinct stack trace between the rows that carry it.
+// Throwables are keyed by their class, message and frames (causes and suppressed exceptions
+// included), so a repeated exception is neither formatted nor stored again. Only the most
+// recently seen MAX_TRACES are remembered; a trace itself lives as long as some row still
+// points at it.
+//
+// Only used from the refresh thread.
+final class TraceInterner {
+    private static final int MAX_TRACES = 1024;
+    static final int MAX_TRACE_CHARS = 32 * 1024;
+
+    private final Map<Key, String> recent = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+            return size() > MAX_TRACES;
+        }
+    };
+
+    @Nonnull
+    String intern(@Nonnull Throwable thrown) {
+        Key key = new Key(thrown);
+        String trace = recent.get(key);
+        if (trace == null) {
+            trace = format(thrown);
+            recent.put(key, trace);
+        }
+        return trace;
+    }
+
+    int size() {
+        return recent.size();
+    }
+
+    private static long mix(long h, int value) {
+        h = (h ^ value) * 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 31);
+    }
+
+    // Everything the formatted trace is made of, in the order printStackTrace walks it: class,
+    // message and frames, then each suppressed throwable, then the cause, all the way down. A
+    // throwable met a second time is recorded as a marker, as the printed trace does with
+    // "[CIRCULAR REFERENCE]". The hash only picks the bucket; two chains share a trace only if
+    // every part is equal.
+    private static final class Key {
+        private static final Object CIRCULAR = new Object();
+
+        private final Object[] parts;
+        private final long hash;
+
+        Key(@Nonnull Throwable thrown) {
+            List<Object> parts = new ArrayList<>();
+            add(thrown, parts, Collections.newSetFromMap(new IdentityHashMap<>()));
+            this.parts = parts.toArray();
+            long h = 0x9E3779B97F4A7C15L;
+            for (Object part : this.parts) {
+                if (part instanceof StackTraceElement[] frames) {
+                    for (StackTraceElement frame : frames) {
+                        h = mix(h, frame.hashCode());
+                    }
+                } else {
+                    h = mix(h, Objects.hashCode(part));
+                }
+            }
+            hash = h;
+        }
+
+        private static void add(@Nonnull Throwable t, @Nonnull List<Object> parts, @Nonnull Set<Throwable> seen) {
+            parts.add(t.getClass().getName());
+            parts.add(t.getLocalizedMessage());
+            if (!seen.add(t)) {
+                parts.add(CIRCULAR);
+                return;
+            }
+            parts.add(t.getStackTrace());
+            Throwable[] suppressed = t.getSuppressed();
+            parts.add(suppressed.length);
+            for (Throwable s : suppressed) {
+                add(s, parts, seen);
+            }
+            Throwable cause = t.getCause();
+            parts.add(cause != null);
+            if (cause != null) {
+                add(cause, parts, seen);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && hash == other.hash && Arrays.deepEquals(parts, other.parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash);
+        }
+    }
+
+    @Nonnull
+    private static String format(@Nonnull Throwable thrown) {
+        StringWriter out = new StringWriter(1024);
+        try (PrintWriter writer = new PrintWriter(out)) {
+            thrown.printStackTrace(writer);
+        } catch (RuntimeException e) {
+            // A throwable whose toString() throws; its class is all we can say.
+            return thrown.getClass().getName();
+        }
+        String trace = out.toString().stripTrailing();
+        return trace.length() > MAX_TRACE_CHARS ? trace.substring(0, MAX_TRACE_CHARS) + "\n\t..." : trace;
+    }
+}
@@ -0,0 +1,37 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nullable;
+
+// Tallies the UI commands written into a builder and a rough size estimate (selector and value
+// characters plus a fixed per-command overhead) so sends can be measured without serializing.
+final class UpdateCounter {
+    private static final int COMMAND_OVERHEAD = 16;
+    // Rough size of one dropdown entry on the wire.
+    private static final int ENTRY_BYTES = 48;
+
+    private int commands;
+    private long bytes;
+
+    void add(@Nullable String selector, @Nullable String value) {
+        commands++;
+        bytes += COMMAND_OVERHEAD + (selector != null ? selector.length() : 0) + (value != null ? value.length() : 0);
+    }
+
+    void addEntries(@Nullable String selector, int entries) {
+        add(selector, null);
+        bytes += (long) entries * ENTRY_BYTES;
+    }
+
+    int commands() {
+        return commands;
+    }
+
+    long bytes() {
+        return bytes;
+    }
+
+    void reset() {
+        commands = 0;
+        bytes = 0;
+    }
+}
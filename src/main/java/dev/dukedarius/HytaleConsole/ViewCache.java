@@ -0,0 +1,88 @@
+package dev.dukedarius.HytaleConsole;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+// Filtered views keyed by their normalized filter, reference counted by the pages using them.
+final class ViewCache {
+    private final Map<String, FilteredView> views = new ConcurrentHashMap<>();
+
+    // Same logger, effective level threshold and resolved query share a view: spacing between
+    // terms doesn't matter, spacing inside a phrase or regex does, and since:/until: compare by
+    // the time they resolved to rather than as typed.
+    @Nonnull
+    static String key(@Nonnull String loggerFilter, int minLevelValue, @Nonnull LogQuery query) {
+        return loggerFilter + '\n' + minLevelValue + '\n' + query.resolved;
+    }
+
+    @Nonnull
+    FilteredView acquire(@Nonnull String key, @Nonnull Supplier<RowFilter> filter, @Nonnull LogBuffer rows, @Nonnull TextIndex index) {
+        return acquire(key, filter, rows, index, null, () -> false);
+    }
+
+    // A view that does not exist yet is built from wider's rows when given (see
+    // FilteredView.buildFrom). A cancelled build throws CancellationException and caches nothing.
+    //
+    // The build runs outside the map so it never holds up other acquires and releases. If two
+    // callers build the same view at once, the first to install it wins and the other's copy is
+    // dropped; it was never visible to the refresh, so nothing else refers to it.
+    @Nonnull
+    FilteredView acquire(@Nonnull String key, @Nonnull Supplier<RowFilter> filter, @Nonnull LogBuffer rows, @Nonnull TextIndex index,
+                         @Nullable FilteredView wider, @Nonnull BooleanSupplier cancelled) {
+        FilteredView cached = views.computeIfPresent(key, (k, existing) -> {
+            existing.refCount++;
+            return existing;
+        });
+        if (cached != null) {
+            return cached;
+        }
+        FilteredView view = new FilteredView(key, filter.get());
+        if (wider != null) {
+            view.buildFrom(wider, rows, cancelled);
+        } else {
+            view.build(rows, index, cancelled);
+        }
+        view.refCount = 1;
+        return views.compute(key, (k, existing) -> {
+            if (existing != null) {
+                existing.refCount++;
+                return existing;
+            }
+            return view;
+        });
+    }
+
+    // Another reference on a view someone already holds. False if it is no longer cached, which
+    // only happens once the cache was cleared.
+    boolean retain(@Nonnull FilteredView view) {
+        return views.computeIfPresent(view.key, (k, existing) -> {
+            if (existing == view) {
+                existing.refCount++;
+            }
+            return existing;
+        }) == view;
+    }
+
+    void release(@Nonnull FilteredView view) {
+        views.computeIfPresent(view.key, (k, existing) -> existing == view && --existing.refCount <= 0 ? null : existing);
+    }
+
+    // Called by the refresh thread after new rows were appended.
+    void catchUp(@Nonnull LogBuffer rows) {
+        for (FilteredView view : views.values()) {
+            view.catchUp(rows);
+        }
+    }
+
+    int size() {
+        return views.size();
+    }
+
+    void clear() {
+        views.clear();
+    }
+}
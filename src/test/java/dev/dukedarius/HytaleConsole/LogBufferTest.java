@@ -0,0 +1,158 @@
+package dev.dukedarius.HytaleConsole;
+
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogBufferTest {
+    private static final long NOW = 1_700_000_000_000L;
+    private static final int INFO = Level.INFO.intValue();
+    private static final int WARNING = Level.WARNING.intValue();
+
+    @Test
+    void eachTierEvictsOnlyItsOwnLines() {
+        LogBuffer rows = tiered(4, 2, Long.MAX_VALUE);
+        append(rows, WARNING, 2);
+        append(rows, INFO, 10);
+        assertTrue(rows.contains(0));
+        assertTrue(rows.contains(1));
+        for (long seq = 2; seq < 8; seq++) {
+            assertFalse(rows.contains(seq));
+        }
+        for (long seq = 8; seq < 12; seq++) {
+            assertTrue(rows.contains(seq));
+            assertEquals("line " + seq, rows.message(seq));
+        }
+        assertEquals(4, rows.tierSize(0));
+        assertEquals(2, rows.tierSize(1));
+        assertEquals(6, rows.evictedCount());
+        assertEquals(0, rows.firstSeq());
+        assertEquals(12, rows.nextSeq());
+    }
+
+    @Test
+    void completeSeqIsPastTheNewestEvictedLine() {
+        LogBuffer rows = tiered(4, 2, Long.MAX_VALUE);
+        append(rows, WARNING, 1);
+        append(rows, INFO, 4);
+        assertEquals(0, rows.completeSeq());
+        append(rows, INFO, 3);
+        assertEquals(4, rows.completeSeq());
+        assertEquals(0, rows.firstSeq());
+        // A WARNING eviction of an older line does not move it back.
+        append(rows, WARNING, 2);
+        assertEquals(4, rows.completeSeq());
+        assertEquals(4, rows.firstSeq());
+    }
+
+    @Test
+    void budgetEvictsTheLowestTierFirst() {
+        // Each line below costs about 130 bytes, so the third goes over.
+        LogBuffer rows = tiered(8, 8, 300);
+        append(rows, WARNING, 1);
+        append(rows, INFO, 2);
+        assertTrue(rows.contains(0));
+        assertFalse(rows.contains(1));
+        assertTrue(rows.contains(2));
+        assertTrue(rows.usedBytes() <= rows.budgetBytes());
+        assertEquals(2, rows.completeSeq());
+    }
+
+    @Test
+    void budgetNeverEvictsTheNewestLine() {
+        LogBuffer rows = tiered(8, 8, 300);
+        long first = rows.append(NOW, WARNING, 0, "x".repeat(1000));
+        assertTrue(rows.contains(first));
+        long second = rows.append(NOW, INFO, 0, "y".repeat(1000));
+        assertFalse(rows.contains(first));
+        assertTrue(rows.contains(second));
+        assertEquals(1, rows.size());
+        assertTrue(rows.usedBytes() > rows.budgetBytes());
+    }
+
+    @Test
+    void scanAscendingMergesTheTiers() {
+        LogBuffer rows = tiered(4, 4, Long.MAX_VALUE);
+        int[] levels = {INFO, WARNING, INFO, INFO, WARNING, INFO, INFO, INFO, WARNING, INFO, INFO};
+        for (int level : levels) {
+            append(rows, level, 1);
+        }
+        // INFO keeps 6, 7, 9 and 10; WARNING keeps 1, 4 and 8.
+        assertEquals(List.of(1L, 4L, 6L, 7L, 8L, 9L, 10L), scan(rows, 0));
+        assertEquals(List.of(7L, 8L, 9L, 10L), scan(rows, 7));
+        assertEquals(List.of(), scan(rows, 11));
+
+        List<Long> visited = new ArrayList<>();
+        assertFalse(rows.scanAscending(0, seq -> visited.add(seq) && visited.size() < 3));
+        assertEquals(List.of(1L, 4L, 6L), visited);
+    }
+
+    @Test
+    void seqAtOrBeforeLooksAcrossTiers() {
+        LogBuffer rows = tiered(4, 2, Long.MAX_VALUE);
+        append(rows, WARNING, 2);
+        append(rows, INFO, 10);
+        // Line n is logged at NOW + 10n; lines 2 to 7 are gone.
+        assertEquals(-1, rows.seqAtOrBefore(NOW - 1));
+        assertEquals(0, rows.seqAtOrBefore(NOW));
+        assertEquals(1, rows.seqAtOrBefore(NOW + 15));
+        assertEquals(1, rows.seqAtOrBefore(NOW + 75));
+        assertEquals(8, rows.seqAtOrBefore(NOW + 85));
+        assertEquals(11, rows.seqAtOrBefore(NOW + 1000));
+    }
+
+    @Test
+    void linesStayFindableThroughManyEvictions() {
+        LogBuffer rows = tiered(8, 4, Long.MAX_VALUE);
+        List<ArrayDeque<Long>> retained = List.of(new ArrayDeque<>(), new ArrayDeque<>());
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            int tier = random.nextInt(5) == 0 ? 1 : 0;
+            long seq = rows.append(NOW + i, tier == 1 ? WARNING : INFO, 0, "line " + i);
+            ArrayDeque<Long> kept = retained.get(tier);
+            kept.addLast(seq);
+            long evicted = kept.size() > rows.tierCapacity(tier) ? kept.removeFirst() : -1;
+            if (evicted >= 0) {
+                assertFalse(rows.contains(evicted), () -> "evicted " + evicted);
+            }
+            if (i % 97 == 0) {
+                for (ArrayDeque<Long> tierSeqs : retained) {
+                    for (long retainedSeq : tierSeqs) {
+                        assertTrue(rows.contains(retainedSeq), () -> "retained " + retainedSeq);
+                        assertEquals("line " + retainedSeq, rows.message(retainedSeq));
+                    }
+                }
+            }
+        }
+        assertEquals(retained.get(0).size() + retained.get(1).size(), rows.size());
+    }
+
+    @Nonnull
+    private static LogBuffer tiered(int infoCapacity, int warningCapacity, long budgetBytes) {
+        return new LogBuffer(new int[]{Integer.MIN_VALUE, WARNING}, new int[]{infoCapacity, warningCapacity}, budgetBytes, 0L, false);
+    }
+
+    // Line n gets the message "line n" and is logged at NOW + 10n.
+    private static void append(@Nonnull LogBuffer rows, int level, int count) {
+        for (int i = 0; i < count; i++) {
+            long seq = rows.nextSeq();
+            assertEquals(seq, rows.append(NOW + 10 * seq, level, 0, "line " + seq));
+        }
+    }
+
+    @Nonnull
+    private static List<Long> scan(@Nonnull LogBuffer rows, long fromSeq) {
+        List<Long> seqs = new ArrayList<>();
+        rows.scanAscending(fromSeq, seqs::add);
+        return seqs;
+    }
+}
@@ -0,0 +1,134 @@
+package dev.dukedarius.HytaleConsole;
+
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogQueryTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final LoggerRegistry loggers = new LoggerRegistry();
+    private final LogBuffer rows = new LogBuffer(64);
+    private final RowFormatter formatter = new RowFormatter(loggers);
+
+    @Test
+    void blankQueryIsEmpty() throws LogQuery.ParseException {
+        assertSame(LogQuery.EMPTY, parse("   "));
+        assertTrue(LogQuery.EMPTY.isEmpty());
+    }
+
+    @Test
+    void reportsMalformedTerms() {
+        assertParseError("\"unclosed phrase", "Missing closing quote");
+        assertParseError("/unclosed", "Missing closing /");
+        assertParseError("/[a/", "Bad regex");
+        assertParseError("level>=NOPE", "Unknown level NOPE");
+        assertParseError("logger:", "logger: needs a name or pattern");
+        assertParseError("since:soon", "Bad duration soon");
+        assertParseError("until:25:99", "Bad time of day 25:99");
+    }
+
+    @Test
+    void termsAreAndedTogether() throws LogQuery.ParseException {
+        LogQuery query = parse("level>=WARNING joined");
+        assertTrue(matches(query, "World", Level.WARNING, "player joined"));
+        assertFalse(matches(query, "World", Level.INFO, "player joined"));
+        assertFalse(matches(query, "World", Level.WARNING, "player left"));
+    }
+
+    @Test
+    void loggerTermsAreOredBeforeTheRestIsAnded() throws LogQuery.ParseException {
+        LogQuery query = parse("logger:World logger:Net* level>=WARNING");
+        assertTrue(matches(query, "World", Level.WARNING, "a"));
+        assertTrue(matches(query, "NetServer", Level.SEVERE, "a"));
+        assertFalse(matches(query, "NetServer", Level.INFO, "a"));
+        assertFalse(matches(query, "Chunks", Level.WARNING, "a"));
+    }
+
+    @Test
+    void negationBindsToOneTerm() throws LogQuery.ParseException {
+        LogQuery query = parse("-logger:World -timeout error");
+        assertTrue(matches(query, "Net", Level.INFO, "error reading"));
+        assertFalse(matches(query, "World", Level.INFO, "error reading"));
+        assertFalse(matches(query, "Net", Level.INFO, "error: timeout"));
+        assertFalse(matches(query, "Net", Level.INFO, "all good"));
+    }
+
+    @Test
+    void phrasesAndRegexesStayOneTerm() throws LogQuery.ParseException {
+        LogQuery query = parse("\"player joined\" /id=\\d+ /");
+        assertEquals(2, query.terms.size());
+        assertTrue(matches(query, "World", Level.INFO, "player joined id=42 ok"));
+        assertFalse(matches(query, "World", Level.INFO, "player has joined id=42 ok"));
+    }
+
+    @Test
+    void indexNeedleIsTheLongestPositiveWord() throws LogQuery.ParseException {
+        assertEquals("connection", parse("lost connection -disconnected").indexNeedle);
+        assertNull(parse("ab level>=INFO").indexNeedle);
+    }
+
+    @Test
+    void typingFurtherNarrows() throws LogQuery.ParseException {
+        assertTrue(parse("conn").narrows(parse("con")));
+        assertTrue(parse("\"lost conn\"").narrows(parse("\"lost con\"")));
+        assertTrue(parse("lost level>=WARNING").narrows(parse("lost")));
+        assertTrue(parse("lost logger:World").narrows(parse("lost")));
+    }
+
+    @Test
+    void wideningDoesNotNarrow() throws LogQuery.ParseException {
+        assertFalse(parse("lost").narrows(parse("lost level>=WARNING")));
+        assertFalse(parse("con").narrows(parse("conn")));
+        assertFalse(parse("-conn").narrows(parse("-con")));
+        assertFalse(parse("/conn/").narrows(parse("/con/")));
+        assertFalse(parse("logger:World logger:Net").narrows(parse("logger:World")));
+        assertFalse(parse("since:5m lost").narrows(parse("since:5m")));
+    }
+
+    @Test
+    void resolvedTextKeepsPhraseSpacingAndFixesTimes() throws LogQuery.ParseException {
+        assertEquals(parse("a  \"b c\"").resolved, parse(" a \"b c\" ").resolved);
+        assertNotEquals(parse("\"b  c\"").resolved, parse("\"b c\"").resolved);
+        assertNotEquals(parse("/b  c/").resolved, parse("/b c/").resolved);
+        assertEquals("-since:@" + (NOW - 300_000) + " lost", parse("-since:5m  lost").resolved);
+        assertNotEquals(parse("since:5m").resolved, LogQuery.parse("since:5m", loggers, NOW + 1000).resolved);
+    }
+
+    @Nonnull
+    private LogQuery parse(@Nonnull String text) throws LogQuery.ParseException {
+        return LogQuery.parse(text, loggers, NOW);
+    }
+
+    private void assertParseError(@Nonnull String text, @Nonnull String message) {
+        LogQuery.ParseException e = assertThrows(LogQuery.ParseException.class, () -> parse(text));
+        assertTrue(e.getMessage().contains(message), () -> "\"" + e.getMessage() + "\" should contain \"" + message + "\"");
+    }
+
+    // Appends the line and tests it the way RowFilter does, columns first.
+    private boolean matches(@Nonnull LogQuery query, @Nonnull String logger, @Nonnull Level level, @Nonnull String message) {
+        int loggerId = loggers.intern(logger);
+        long seq = rows.append(NOW, level.intValue(), loggerId, message);
+        for (LogQuery.RowPredicate predicate : query.rowPredicates) {
+            if (!predicate.test(rows, seq)) {
+                return false;
+            }
+        }
+        String haystack = formatter.searchText(NOW, level.intValue(), loggerId, message);
+        for (LogQuery.TextPredicate predicate : query.textPredicates) {
+            if (!predicate.test(haystack)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
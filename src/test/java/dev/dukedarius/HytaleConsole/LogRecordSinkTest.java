@@ -0,0 +1,138 @@
+package dev.dukedarius.HytaleConsole;
+
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogRecordSinkTest {
+    @Test
+    void drainsInArrivalOrderUpToTheLimit() {
+        LogRecordSink sink = new LogRecordSink(8);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(sink.add(record("r" + i)));
+        }
+        assertEquals(5, sink.size());
+        assertEquals("r0", sink.get(0).getMessage());
+
+        List<String> drained = new ArrayList<>();
+        assertEquals(3, sink.drain(r -> drained.add(r.getMessage()), 3));
+        assertEquals(2, sink.drain(r -> drained.add(r.getMessage()), 10));
+        assertEquals(List.of("r0", "r1", "r2", "r3", "r4"), drained);
+        assertTrue(sink.isEmpty());
+    }
+
+    @Test
+    void countsDropsWhenFull() {
+        LogRecordSink sink = new LogRecordSink(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(sink.add(record("r" + i)));
+        }
+        assertFalse(sink.add(record("r4")));
+        assertFalse(sink.add(record("r5")));
+        assertEquals(2, sink.getDroppedCount());
+        assertEquals(4, sink.size());
+
+        // Draining frees the slots again, across the wrap.
+        sink.drain(r -> {}, 2);
+        assertTrue(sink.add(record("r6")));
+        assertTrue(sink.add(record("r7")));
+        List<String> drained = new ArrayList<>();
+        sink.drain(r -> drained.add(r.getMessage()), 10);
+        assertEquals(List.of("r2", "r3", "r6", "r7"), drained);
+        assertEquals(2, sink.getDroppedCount());
+    }
+
+    @Test
+    void wakeupRunsOnceAfterArming() {
+        LogRecordSink sink = new LogRecordSink(8);
+        AtomicInteger wakeups = new AtomicInteger();
+        sink.setWakeup(wakeups::incrementAndGet);
+
+        sink.add(record("unarmed"));
+        assertEquals(0, wakeups.get());
+        sink.clear();
+
+        assertFalse(sink.armWakeup());
+        sink.add(record("first"));
+        sink.add(record("second"));
+        assertEquals(1, wakeups.get());
+        sink.clear();
+
+        assertFalse(sink.armWakeup());
+        sink.add(record("third"));
+        assertEquals(2, wakeups.get());
+    }
+
+    @Test
+    void armingWithRecordsWaitingTakesTheWakeupBack() {
+        LogRecordSink sink = new LogRecordSink(8);
+        AtomicInteger wakeups = new AtomicInteger();
+        sink.setWakeup(wakeups::incrementAndGet);
+        sink.add(record("waiting"));
+
+        assertTrue(sink.armWakeup());
+        sink.add(record("next"));
+        assertEquals(0, wakeups.get());
+    }
+
+    @Test
+    void everyRecordFromManyProducersIsDrainedOrDropped() throws InterruptedException {
+        int producers = 4;
+        int perProducer = 20_000;
+        LogRecordSink sink = new LogRecordSink(256);
+        AtomicInteger accepted = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String name = "p" + p;
+            Runnable produce = () -> {
+                for (int i = 0; i < perProducer; i++) {
+                    LogRecord record = record(name);
+                    record.setSequenceNumber(i);
+                    if (sink.add(record)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+            };
+            Thread thread = new Thread(produce);
+            thread.start();
+            threads.add(thread);
+        }
+
+        // Each producer's records must come out in the order it added them.
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        int[] drained = new int[1];
+        Runnable check = () -> sink.drain(r -> {
+            int p = Integer.parseInt(r.getMessage().substring(1));
+            assertTrue(r.getSequenceNumber() > lastSeen[p]);
+            lastSeen[p] = r.getSequenceNumber();
+            drained[0]++;
+        }, 64);
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            check.run();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        while (!sink.isEmpty()) {
+            check.run();
+        }
+        assertEquals(accepted.get(), drained[0]);
+        assertEquals(producers * perProducer, drained[0] + sink.getDroppedCount());
+    }
+
+    @Nonnull
+    private static LogRecord record(@Nonnull String message) {
+        return new LogRecord(Level.INFO, message);
+    }
+}
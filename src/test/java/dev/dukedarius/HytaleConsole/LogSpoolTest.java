@@ -0,0 +1,114 @@
+package dev.dukedarius.HytaleConsole;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogSpoolTest {
+    private static final long NOW = System.currentTimeMillis();
+    private static final int INFO = Level.INFO.intValue();
+
+    @TempDir
+    Path directory;
+
+    private final LoggerRegistry loggers = new LoggerRegistry();
+
+    @Test
+    void recordsSurviveAReopen() throws IOException {
+        try (LogSpool spool = open()) {
+            spool.append(10, NOW, INFO, "World", "player joined", 1, NOW, 0);
+            spool.append(11, NOW + 1, Level.WARNING.intValue(), "Net", "timeout", 3, NOW + 5, 2);
+        }
+        try (LogSpool spool = open()) {
+            assertEquals(10, spool.firstSeq());
+            assertEquals(12, spool.nextSeq());
+            LogBuffer rows = read(spool, 10);
+            assertEquals(2, rows.size());
+            assertEquals("player joined", rows.message(10));
+            assertEquals("World", loggers.name(rows.loggerId(10)));
+            assertEquals(Level.WARNING.intValue(), rows.level(11));
+            assertEquals(3, rows.repeats(11));
+            assertEquals(NOW + 5, rows.lastMillis(11));
+            assertEquals(2, rows.suppressedBefore(11));
+        }
+    }
+
+    @Test
+    void oversizedTextIsCutOnACharacterBoundary() throws IOException {
+        // Two UTF-8 bytes per character, so either limit falls in the middle of one.
+        String logger = "\u00e9".repeat(Short.MAX_VALUE / 2 + 1);
+        String message = "\u00e9".repeat(LogSpool.MAX_MESSAGE_BYTES / 2 + 1);
+        try (LogSpool spool = open()) {
+            spool.append(0, NOW, INFO, logger, message, 1, NOW, 0);
+            spool.append(1, NOW, INFO, "World", "after", 1, NOW, 0);
+        }
+        try (LogSpool spool = open()) {
+            assertEquals(2, spool.nextSeq());
+            LogBuffer rows = read(spool, 0);
+            String readLogger = loggers.name(rows.loggerId(0));
+            String readMessage = rows.message(0);
+            assertEquals(Short.MAX_VALUE / 2, readLogger.length());
+            assertTrue(logger.startsWith(readLogger));
+            assertEquals(LogSpool.MAX_MESSAGE_BYTES / 2, readMessage.length());
+            assertTrue(message.startsWith(readMessage));
+            assertEquals("after", rows.message(1));
+        }
+    }
+
+    @Test
+    void tornFinalRecordIsDroppedOnReopen() throws IOException {
+        try (LogSpool spool = open()) {
+            for (int i = 0; i < 5; i++) {
+                spool.append(i, NOW + i, INFO, "World", "line " + i, 1, NOW + i, 0);
+            }
+        }
+        Path data = segment();
+        long size = Files.size(data);
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+        try (LogSpool spool = open()) {
+            assertEquals(4, spool.nextSeq());
+            assertTrue(Files.size(data) < size - 3);
+            spool.append(4, NOW + 4, INFO, "World", "line 4 again", 1, NOW + 4, 0);
+        }
+        try (LogSpool spool = open()) {
+            LogBuffer rows = read(spool, 0);
+            assertEquals(5, rows.size());
+            assertEquals("line 3", rows.message(3));
+            assertEquals("line 4 again", rows.message(4));
+            assertFalse(rows.contains(5));
+        }
+    }
+
+    @Nonnull
+    private LogSpool open() throws IOException {
+        return LogSpool.open(directory, 1024 * 1024, 64 * 1024 * 1024, 24 * 3_600_000L);
+    }
+
+    @Nonnull
+    private LogBuffer read(@Nonnull LogSpool spool, long fromSeq) {
+        LogBuffer rows = new LogBuffer(16);
+        spool.read(fromSeq, 16, loggers, rows);
+        return rows;
+    }
+
+    @Nonnull
+    private Path segment() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*.spool")) {
+            return stream.iterator().next();
+        }
+    }
+}